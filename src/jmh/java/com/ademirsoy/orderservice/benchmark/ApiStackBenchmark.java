@@ -0,0 +1,115 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.PhotoShootingOrderServiceApplication;
+import com.ademirsoy.orderservice.service.OrderService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Load comparison of the MVC and the reactive stack: the time to serve a wave of {@code connections}
+ * concurrent requests for a page of orders, each on its own connection. Starts the whole application
+ * on a random port with the journal disabled and logging turned down.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ApiStackBenchmark {
+
+    private static final int ORDERS = 10_000;
+
+    @Param({"mvc", "reactive"})
+    public String stack;
+
+    @Param({"100", "1000"})
+    public int connections;
+
+    private Path directory;
+    private ConfigurableApplicationContext context;
+    private ExecutorService clientExecutor;
+    private HttpClient client;
+    private HttpRequest request;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("stack-benchmark");
+        SpringApplication application = new SpringApplication(PhotoShootingOrderServiceApplication.class);
+        if ("reactive".equals(stack)) {
+            application.setAdditionalProfiles("reactive");
+        }
+        context = application.run("--server.port=0",
+                "--spring.main.banner-mode=off",
+                "--order-service.journal.enabled=false",
+                "--order-service.storage.directory=" + directory.resolve("photos"),
+                "--order-service.upload.staging-directory=" + directory.resolve("staging"),
+                "--logging.level.root=warn",
+                "--logging.level.order-service.audit=off");
+        OrderService orderService = context.getBean(OrderService.class);
+        for (int i = 0; i < ORDERS; i++) {
+            orderService.create(BenchmarkData.order(i));
+        }
+
+        clientExecutor = Executors.newFixedThreadPool(4);
+        client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .build();
+        request = HttpRequest.newBuilder(URI.create("http://localhost:"
+                        + context.getEnvironment().getProperty("local.server.port") + "/orders?state=PENDING&limit=20"))
+                .GET()
+                .build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        context.close();
+        clientExecutor.shutdownNow();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public int concurrentRequests() {
+        CompletableFuture<?>[] responses = new CompletableFuture<?>[connections];
+        for (int i = 0; i < connections; i++) {
+            responses[i] = client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .thenAccept(response -> {
+                        if (response.statusCode() != 200) {
+                            throw new IllegalStateException("Unexpected status: " + response.statusCode());
+                        }
+                    });
+        }
+        CompletableFuture.allOf(responses).join();
+        return responses.length;
+    }
+}
@@ -0,0 +1,81 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Auto assignment search over all photographers. In the worst case every photographer but the last
+ * one is booked at the requested time, so each of them needs an overlap lookup in its schedule.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class AutoAssignBenchmark {
+
+    @Param({"10000"})
+    public int photographers;
+
+    @Param({"20"})
+    public int ordersPerPhotographer;
+
+    @Param({"true", "false"})
+    public boolean worstCase;
+
+    private OrderRepository orderRepository;
+    private List<Long> photographerIds;
+    private Instant start;
+    private Instant end;
+
+    @Setup
+    public void setUp() {
+        orderRepository = new OrderRepository(new NoOpJournal());
+        photographerIds = LongStream.rangeClosed(1, photographers).boxed().collect(Collectors.toList());
+        long id = 0;
+        for (long photographerId = 1; photographerId <= photographers; photographerId++) {
+            for (int day = 0; day < ordersPerPhotographer; day++) {
+                //NOTE: day 0 is the requested day, the last photographer keeps it free in the worst case
+                boolean free = day == 0 && (!worstCase || photographerId == photographers) && photographerId % 2 == 0;
+                Order order = BenchmarkData.order(++id);
+                order.setDate(LocalDate.parse("2021-06-01").plusDays(day));
+                order.setTime(LocalTime.of(free ? 16 : 10, 0));
+                order.setState(OrderState.ASSIGNED);
+                order.setPhotographerId(photographerId);
+                orderRepository.restore(order);
+            }
+        }
+        Order requested = BenchmarkData.order(++id);
+        requested.setDate(LocalDate.parse("2021-06-01"));
+        requested.setTime(LocalTime.of(10, 0));
+        start = requested.getDateTime();
+        end = requested.getEndDateTime();
+    }
+
+    @Benchmark
+    public Long findLeastLoadedAvailablePhotographer() {
+        return orderRepository.findLeastLoadedAvailablePhotographer(photographerIds, start, end);
+    }
+}
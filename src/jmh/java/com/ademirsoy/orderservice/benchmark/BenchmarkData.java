@@ -0,0 +1,30 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.model.Contact;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.PhotoType;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.TimeZone;
+
+final class BenchmarkData {
+
+    private BenchmarkData() {
+    }
+
+    static Order order(long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setCreatedDate(Instant.now());
+        order.setContact(new Contact("lorenzo", "insigne", "lorenzo@napoli.it", "1234567890"));
+        order.setPhotoType(PhotoType.values()[(int) (id % PhotoType.values().length)]);
+        order.setDate(LocalDate.parse("2021-06-01").plusDays(id % 365));
+        order.setTime(LocalTime.of(8 + (int) (id % 12), 0));
+        order.setTimezone(TimeZone.getTimeZone("Europe/Berlin"));
+        order.setState(OrderState.PENDING);
+        return order;
+    }
+}
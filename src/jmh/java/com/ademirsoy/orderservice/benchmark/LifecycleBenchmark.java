@@ -0,0 +1,135 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.model.request.AssignOrderRequest;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.repository.PhotographerRepository;
+import com.ademirsoy.orderservice.service.OrderEventPublisher;
+import com.ademirsoy.orderservice.service.OrderMetrics;
+import com.ademirsoy.orderservice.service.OrderService;
+import com.ademirsoy.orderservice.service.OrderValidator;
+import com.ademirsoy.orderservice.service.PhotographerService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot paths of the order lifecycle against a store that already holds {@code orders} orders,
+ * spread over {@link #PHOTOGRAPHERS} photographers so their schedules grow with the store.
+ * The store is rebuilt for every iteration, since {@link #create} keeps adding to it.
+ * <p>
+ * Run with {@code -prof gc} to see the allocation rate of each operation next to its latency.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class LifecycleBenchmark {
+
+    private static final int PHOTOGRAPHERS = 100;
+    private static final int ASSIGNABLE_ORDERS = 1024;
+
+    @Param({"1000", "100000", "1000000"})
+    public int orders;
+
+    private OrderRepository orderRepository;
+    private OrderService orderService;
+    private ObjectMapper objectMapper;
+    private Order storedOrder;
+    private AssignOrderRequest assignRequest;
+    private Order[] assignableOrders;
+    private int nextAssignable;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        orderRepository = new OrderRepository(new NoOpJournal());
+        PhotographerRepository photographerRepository = new PhotographerRepository(new NoOpJournal());
+        PhotographerService photographerService = new PhotographerService(photographerRepository, orderRepository);
+        OrderMetrics orderMetrics = new OrderMetrics(new SimpleMeterRegistry(), orderRepository);
+        orderService = new OrderService(orderRepository, photographerService,
+                new OrderValidator(orderRepository, orderMetrics), null, orderMetrics, new OrderEventPublisher(1024, 1000));
+        //NOTE: the same defaults as the ObjectMapper Spring Boot builds for the controllers
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+        for (int i = 0; i < PHOTOGRAPHERS; i++) {
+            photographerService.create(new Photographer());
+        }
+        for (long id = 1; id <= orders; id++) {
+            Order order = BenchmarkData.order(id);
+            //NOTE: one hour slots, unique per photographer
+            order.setDate(LocalDate.parse("2021-01-01").plusDays(id / PHOTOGRAPHERS / 12));
+            order.setTime(LocalTime.of(8 + (int) (id / PHOTOGRAPHERS % 12), 0));
+            order.setPhotographerId(id % PHOTOGRAPHERS + 1);
+            order.setState(OrderState.ASSIGNED);
+            orderRepository.restore(order);
+        }
+        storedOrder = orderRepository.findById((long) orders / 2);
+
+        //NOTE: pending orders right after the busiest stretch of photographer 1, so the conflict check has neighbours
+        assignableOrders = new Order[ASSIGNABLE_ORDERS];
+        for (int i = 0; i < ASSIGNABLE_ORDERS; i++) {
+            Order order = BenchmarkData.order(orders + i + 1L);
+            order.setDate(LocalDate.parse("2021-01-01").plusDays(orders / PHOTOGRAPHERS / 12 + 1 + i));
+            order.setTime(LocalTime.of(10, 0));
+            orderRepository.restore(order);
+            assignableOrders[i] = order;
+        }
+        assignRequest = new AssignOrderRequest();
+        assignRequest.setPhotographerId(1L);
+        nextAssignable = 0;
+    }
+
+    @Benchmark
+    public Order create() {
+        return orderService.create(BenchmarkData.order(0L));
+    }
+
+    //NOTE: includes moving the order back to PENDING, which costs about as much as one more update
+    @Benchmark
+    public Order assign() {
+        Order order = assignableOrders[nextAssignable++ % ASSIGNABLE_ORDERS];
+        orderService.assign(assignRequest, order.getId());
+        order.setPhotographerId(null);
+        order.setState(OrderState.PENDING);
+        return orderRepository.update(order);
+    }
+
+    @Benchmark
+    public Instant getDateTime() {
+        return storedOrder.getDateTime();
+    }
+
+    @Benchmark
+    public List<Order> findByPhotographer() {
+        return orderRepository.findByPhotographer(storedOrder.getPhotographerId());
+    }
+
+    @Benchmark
+    public byte[] serialize() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(storedOrder);
+    }
+}
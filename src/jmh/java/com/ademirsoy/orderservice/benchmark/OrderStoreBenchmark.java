@@ -0,0 +1,103 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.repository.HeapOrderStore;
+import com.ademirsoy.orderservice.repository.OffHeapOrderStore;
+import com.ademirsoy.orderservice.repository.OrderStore;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Orders kept on the heap versus encoded in off-heap slabs, with {@code orders} orders stored.
+ * {@link #fullCollection} is the pause of a full collection, which has to trace every order kept on the heap.
+ * {@link #memoryInUse} reports the heap and direct memory left in use after a full collection as the secondary
+ * results {@code heapMegabytes} and {@code directMegabytes}.
+ * Run with {@code -prof gc} to compare the allocation rate and the collections caused by reads.
+ */
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g", "-XX:MaxDirectMemorySize=2g"})
+public class OrderStoreBenchmark {
+
+    private static final int SLAB_SIZE = 64 * 1024 * 1024;
+
+    @Param({"5000000"})
+    public int orders;
+
+    @Param({"heap", "off-heap"})
+    public String store;
+
+    private OrderStore orderStore;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        orderStore = "heap".equals(store) ? new HeapOrderStore() : new OffHeapOrderStore(SLAB_SIZE);
+        for (long id = 1; id <= orders; id++) {
+            orderStore.put(BenchmarkData.order(id), null);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2)
+    @Measurement(iterations = 5)
+    public void fullCollection() {
+        System.gc();
+    }
+
+    //NOTE: a single invocation, JMH sums event counters over the iterations
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    public void memoryInUse(MemoryInUse memoryInUse) {
+        System.gc();
+        memoryInUse.heapMegabytes = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed() >> 20;
+        memoryInUse.directMegabytes = orderStore instanceof OffHeapOrderStore
+                ? ((OffHeapOrderStore) orderStore).getCapacity() >> 20 : 0;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public Order read() {
+        return orderStore.get(ThreadLocalRandom.current().nextLong(1, orders + 1));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void update() {
+        Order order = orderStore.get(ThreadLocalRandom.current().nextLong(1, orders + 1));
+        order.setVersion(order.getVersion() == null ? 1L : order.getVersion() + 1);
+        orderStore.put(order, null);
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class MemoryInUse {
+
+        public long heapMegabytes;
+        public long directMegabytes;
+    }
+}
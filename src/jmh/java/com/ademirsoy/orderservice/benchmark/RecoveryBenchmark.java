@@ -0,0 +1,83 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.persistence.EntityCodec;
+import com.ademirsoy.orderservice.persistence.FileJournal;
+import com.ademirsoy.orderservice.persistence.JournalRecovery;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.repository.PhotographerRepository;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Startup time: loading a snapshot plus a short journal tail versus replaying every record from the journal.
+ * The journal-only data set holds each order twice (create and one update), like a real history would.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class RecoveryBenchmark {
+
+    private static final int JOURNAL_TAIL = 10_000;
+
+    @Param({"1000000"})
+    public int orders;
+
+    @Param({"true", "false"})
+    public boolean snapshot;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        try (FileJournal journal = new FileJournal(directory, 65536)) {
+            if (snapshot) {
+                journal.snapshot(() -> LongStream.rangeClosed(1, orders).mapToObj(BenchmarkData::order).map(EntityCodec::encode));
+            } else {
+                LongStream.rangeClosed(1, orders).mapToObj(BenchmarkData::order).map(EntityCodec::encode).forEach(journal::append);
+                LongStream.rangeClosed(1, orders).mapToObj(BenchmarkData::order).map(EntityCodec::encode).forEach(journal::append);
+            }
+            LongStream.rangeClosed(1, JOURNAL_TAIL).mapToObj(BenchmarkData::order).map(EntityCodec::encode).forEach(journal::append);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public Order recover() throws IOException {
+        OrderRepository orderRepository = new OrderRepository(new NoOpJournal());
+        try (FileJournal journal = new FileJournal(directory, 65536)) {
+            new JournalRecovery(journal, orderRepository, new PhotographerRepository(new NoOpJournal())).recover();
+        }
+        return orderRepository.findById((long) orders);
+    }
+}
@@ -0,0 +1,106 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.LoggerContext;
+import ch.qos.logback.classic.encoder.PatternLayoutEncoder;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.FileAppender;
+import com.ademirsoy.orderservice.controller.OrderController;
+import com.ademirsoy.orderservice.model.Order;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Latency distribution of logging a create order request, as seen by the request threads.
+ * {@link #synchronousConcatenated} is the previous setup: the whole order concatenated into the message and
+ * written to the file by the calling thread, with the caller class in the pattern. {@link #asynchronousAudit}
+ * is the audit event, enqueued for a background thread. Only the file appenders are compared, the console
+ * was configured the same way and would only widen the gap. Sample mode reports p99 and above per method.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class RequestLoggingBenchmark {
+
+    private Path directory;
+    private LoggerContext synchronousContext;
+    private LoggerContext asynchronousContext;
+    private Logger requestLogger;
+    private Logger auditLogger;
+    private Order order;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("logging-benchmark");
+        order = BenchmarkData.order(1);
+
+        synchronousContext = new LoggerContext();
+        requestLogger = synchronousContext.getLogger(OrderController.class);
+        requestLogger.addAppender(this.fileAppender(synchronousContext, "order-service.log", "%d %p %C{1.} [%t] %m%n"));
+
+        asynchronousContext = new LoggerContext();
+        AsyncAppender asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(asynchronousContext);
+        asyncAppender.setQueueSize(8192);
+        asyncAppender.setNeverBlock(true);
+        asyncAppender.addAppender(this.fileAppender(asynchronousContext, "audit.log", "%d{ISO8601} [%t] %m%n"));
+        asyncAppender.start();
+        auditLogger = asynchronousContext.getLogger("order-service.audit");
+        auditLogger.addAppender(asyncAppender);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        synchronousContext.stop();
+        asynchronousContext.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public void synchronousConcatenated() {
+        requestLogger.info("Create order request received: " + order.toString());
+    }
+
+    @Benchmark
+    public void asynchronousAudit() {
+        auditLogger.info("action={} {}={} {}={}", "create", "photoType", order.getPhotoType(), "date", order.getDate());
+    }
+
+    private FileAppender<ILoggingEvent> fileAppender(LoggerContext context, String fileName, String pattern) {
+        PatternLayoutEncoder encoder = new PatternLayoutEncoder();
+        encoder.setContext(context);
+        encoder.setPattern(pattern);
+        encoder.start();
+        FileAppender<ILoggingEvent> appender = new FileAppender<>();
+        appender.setContext(context);
+        appender.setFile(directory.resolve(fileName).toString());
+        appender.setEncoder(encoder);
+        appender.start();
+        return appender;
+    }
+}
@@ -0,0 +1,74 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.controller.OrderResponseCache;
+import com.ademirsoy.orderservice.model.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The response body of GET /orders/{id} for reads spread over {@code hotOrders} popular orders,
+ * serialized for every read versus taken from {@link OrderResponseCache}.
+ * Run with {@code -prof gc} to compare the allocation of both.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResponseCacheBenchmark {
+
+    @Param({"1000"})
+    public int hotOrders;
+
+    private Order[] orders;
+    private ObjectMapper objectMapper;
+    private OrderResponseCache orderResponseCache;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        orderResponseCache = new OrderResponseCache(objectMapper, new MappingJackson2CborHttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(), DataSize.ofMegabytes(32), DataSize.ofKilobytes(1));
+        orders = new Order[hotOrders];
+        for (int i = 0; i < hotOrders; i++) {
+            orders[i] = BenchmarkData.order(i + 1);
+            orders[i].setVersion(1L);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialized() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(randomOrder());
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return orderResponseCache.get(randomOrder(), MediaType.APPLICATION_JSON).getBody();
+    }
+
+    private Order randomOrder() {
+        return orders[ThreadLocalRandom.current().nextInt(orders.length)];
+    }
+}
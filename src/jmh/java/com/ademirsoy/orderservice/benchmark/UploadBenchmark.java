@@ -0,0 +1,82 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.storage.LocalPhotoStorage;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Sustained throughput of concurrent uploads into {@link LocalPhotoStorage}, in archives per second.
+ * "file" is what a container spooled part looks like, "stream" any other input stream.
+ * Multiply the score by sizeInMb for MB/s.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(4)
+public class UploadBenchmark {
+
+    @Param({"5", "50"})
+    public int sizeInMb;
+
+    @Param({"file", "stream"})
+    public String source;
+
+    private Path directory;
+    private Path upload;
+    private LocalPhotoStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("upload-benchmark");
+        byte[] content = new byte[sizeInMb * 1024 * 1024];
+        new Random(42).nextBytes(content);
+        upload = Files.write(directory.resolve("upload.zip"), content);
+        storage = new LocalPhotoStorage(directory.resolve("photos"));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    @Benchmark
+    public String store() throws IOException {
+        String key;
+        try (ReadableByteChannel content = "file".equals(source)
+                ? FileChannel.open(upload)
+                : Channels.newChannel(new BufferedInputStream(Files.newInputStream(upload)))) {
+            key = storage.store(1L, "upload.zip", content);
+        }
+        Files.delete(directory.resolve("photos").resolve(key));
+        return key;
+    }
+}
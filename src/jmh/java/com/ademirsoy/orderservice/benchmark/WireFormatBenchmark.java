@@ -0,0 +1,81 @@
+package com.ademirsoy.orderservice.benchmark;
+
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.response.OrderPage;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+/**
+ * Encoding and decoding a page of {@code pageSize} orders as JSON, CBOR and Smile, with the mappers the
+ * application configures for each media type. The size of the encoded page is printed once per trial.
+ * Run with {@code -prof gc} to compare the allocation of each format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"100"})
+    public int pageSize;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    private ObjectMapper mapper;
+    private OrderPage page;
+    private byte[] encoded;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        switch (format) {
+            case "cbor":
+                mapper = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory());
+                break;
+            case "smile":
+                mapper = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new SmileFactory());
+                break;
+            default:
+                //NOTE: Spring Boot writes dates of JSON responses as ISO strings
+                mapper = Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        }
+        List<Order> orders = LongStream.rangeClosed(1, pageSize).mapToObj(BenchmarkData::order).collect(Collectors.toList());
+        page = new OrderPage(orders, "MTAw");
+        encoded = mapper.writeValueAsBytes(page);
+        System.out.printf("%n%s page of %d orders: %d bytes%n", format, pageSize, encoded.length);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        return mapper.writeValueAsBytes(page);
+    }
+
+    @Benchmark
+    public OrderPage decode() throws IOException {
+        return mapper.readValue(encoded, OrderPage.class);
+    }
+}
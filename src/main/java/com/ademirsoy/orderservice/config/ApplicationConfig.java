@@ -1,9 +1,47 @@
 package com.ademirsoy.orderservice.config;
 
+import com.ademirsoy.orderservice.persistence.FileJournal;
+import com.ademirsoy.orderservice.persistence.Journal;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import com.ademirsoy.orderservice.repository.HeapOrderStore;
+import com.ademirsoy.orderservice.repository.OffHeapOrderStore;
+import com.ademirsoy.orderservice.repository.OrderStore;
+import com.ademirsoy.orderservice.storage.LocalPhotoStorage;
+import com.ademirsoy.orderservice.storage.PhotoStorage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.nio.file.Paths;
 
 @Configuration
+@EnableScheduling
 public class ApplicationConfig {
 
+    @Bean(destroyMethod = "close")
+    public Journal journal(@Value("${order-service.journal.enabled}") boolean enabled,
+                           @Value("${order-service.journal.directory}") String directory,
+                           @Value("${order-service.journal.queue-capacity}") int queueCapacity) throws IOException {
+        if (!enabled) {
+            return new NoOpJournal();
+        }
+        return new FileJournal(Paths.get(directory), queueCapacity);
+    }
+
+    @Bean
+    public OrderStore orderStore(@Value("${order-service.orders.off-heap.enabled}") boolean offHeap,
+                                 @Value("${order-service.orders.off-heap.slab-size}") DataSize slabSize) {
+        if (!offHeap) {
+            return new HeapOrderStore();
+        }
+        return new OffHeapOrderStore(Math.toIntExact(slabSize.toBytes()));
+    }
 
+    @Bean
+    public PhotoStorage photoStorage(@Value("${order-service.storage.directory}") String directory) throws IOException {
+        return new LocalPhotoStorage(Paths.get(directory));
+    }
 }
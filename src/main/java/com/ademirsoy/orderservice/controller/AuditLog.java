@@ -0,0 +1,27 @@
+package com.ademirsoy.orderservice.controller;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Audit trail of the requests the API receives, one compact {@code action=... key=value} event per request.
+ * Events carry identifiers only, never contact data. They have their own logger, so they can be routed
+ * or switched off independently of the application log, and are only formatted when it is enabled.
+ */
+@Slf4j(topic = "order-service.audit")
+public final class AuditLog {
+
+    private AuditLog() {
+    }
+
+    public static void record(String action) {
+        log.info("action={}", action);
+    }
+
+    public static void record(String action, String key, Object value) {
+        log.info("action={} {}={}", action, key, value);
+    }
+
+    public static void record(String action, String key1, Object value1, String key2, Object value2) {
+        log.info("action={} {}={} {}={}", action, key1, value1, key2, value2);
+    }
+}
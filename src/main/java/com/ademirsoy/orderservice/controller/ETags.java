@@ -0,0 +1,55 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.exception.PreconditionFailedException;
+import com.ademirsoy.orderservice.model.AbstractEntity;
+import org.springframework.http.MediaType;
+
+/**
+ * Entity tags of the API, the quoted version of an entity.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(AbstractEntity entity) {
+        return "\"" + entity.getVersion() + "\"";
+    }
+
+    /**
+     * Entity tag of one representation of an entity. JSON without a content coding is tagged with the version alone,
+     * other representations also carry their format and coding, e.g. {@code "3-cbor-gzip"}.
+     */
+    public static String of(AbstractEntity entity, MediaType mediaType, boolean gzipped) {
+        StringBuilder tag = new StringBuilder("\"").append(entity.getVersion());
+        if (!MediaType.APPLICATION_JSON.equalsTypeAndSubtype(mediaType)) {
+            tag.append('-').append(mediaType.getSubtype());
+        }
+        if (gzipped) {
+            tag.append("-gzip");
+        }
+        return tag.append('"').toString();
+    }
+
+    /**
+     * The version an If-Match header requires, null when any version is accepted.
+     * A single entity tag is supported, anything that is not a version can never match. The tag of any representation
+     * matches its version.
+     */
+    public static Long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || "*".equals(ifMatch.trim())) {
+            return null;
+        }
+        String tag = ifMatch.trim();
+        //NOTE: If-Match compares strongly, a weak tag never matches
+        if (tag.length() < 2 || !tag.startsWith("\"") || !tag.endsWith("\"")) {
+            throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
+        }
+        int end = tag.indexOf('-', 1);
+        try {
+            return Long.valueOf(tag.substring(1, end < 0 ? tag.length() - 1 : end));
+        } catch (NumberFormatException e) {
+            throw new PreconditionFailedException("If-Match does not match the current version: " + ifMatch);
+        }
+    }
+}
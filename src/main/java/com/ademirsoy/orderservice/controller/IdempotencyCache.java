@@ -0,0 +1,226 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.exception.UnprocessableEntityException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Responses of requests sent with an {@code Idempotency-Key} header, so a client retrying a request gets the
+ * original response instead of creating or changing an order twice. A retry that arrives while the original
+ * request is still running waits for it and gets its response.
+ * <p>
+ * A key belongs to one request, identified by its method, path, query, content type, accepted media types and
+ * body. The same key with a different request is rejected. Responses are kept for the retention period, and the
+ * oldest ones are evicted earlier once the cache holds more than its maximum size. Server errors and failed
+ * executions are not kept, the next retry runs the request again.
+ */
+@Component
+public class IdempotencyCache {
+
+    public static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    public static final String IDEMPOTENT_REPLAYED = "Idempotent-Replayed";
+    //NOTE: replayed along with the body, the others are set by the server for every response
+    public static final List<String> REPLAYED_HEADERS = List.of(HttpHeaders.CONTENT_TYPE, HttpHeaders.CONTENT_ENCODING,
+            HttpHeaders.ETAG, HttpHeaders.LOCATION, HttpHeaders.VARY);
+    //NOTE: answered with 409 to a retry that stopped waiting for the original request
+    public static final String STILL_RUNNING = IDEMPOTENCY_KEY
+            + " is used by a request that is still running, please retry later";
+    public static final String RETRY_AFTER_SECONDS = "1";
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final long retention;
+    private final long maxSize;
+    //NOTE: in insertion order, the eldest entry expires first
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+    private long size;
+
+    public IdempotencyCache(@Value("${order-service.idempotency.retention}") long retention,
+                            @Value("${order-service.idempotency.max-size}") DataSize maxSize) {
+        this.retention = retention;
+        this.maxSize = maxSize.toBytes();
+    }
+
+    /**
+     * Starts the request with the given key, or joins the request that already started with it.
+     * The request is only run when the returned execution {@link Execution#isOwner() owns} the key,
+     * its outcome then has to be reported with {@link #complete} or {@link #fail}.
+     */
+    public Execution begin(String key, String fingerprint) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new UnprocessableEntityException(IDEMPOTENCY_KEY + " must have 1 to " + MAX_KEY_LENGTH + " characters");
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            evictExpired(now);
+            Entry entry = entries.get(key);
+            if (entry != null) {
+                if (!entry.fingerprint.equals(fingerprint)) {
+                    throw new UnprocessableEntityException(IDEMPOTENCY_KEY + " has already been used for a different request");
+                }
+                return new Execution(key, entry, false);
+            }
+            entry = new Entry(fingerprint, now);
+            entries.put(key, entry);
+            return new Execution(key, entry, true);
+        }
+    }
+
+    //NOTE: only the first outcome reported for an execution counts
+    public void complete(Execution execution, RecordedResponse response) {
+        if (execution.entry.response.isDone()) {
+            return;
+        }
+        if (response.getStatus() >= 500 || response.size() > maxSize) {
+            forget(execution);
+        } else {
+            synchronized (entries) {
+                if (entries.get(execution.key) == execution.entry) {
+                    execution.entry.size = response.size();
+                    size += response.size();
+                    evictEldest();
+                }
+            }
+        }
+        execution.entry.response.complete(response);
+    }
+
+    public void fail(Execution execution, Throwable e) {
+        if (execution.entry.response.isDone()) {
+            return;
+        }
+        forget(execution);
+        execution.entry.response.completeExceptionally(e);
+    }
+
+    public long getSize() {
+        synchronized (entries) {
+            return size;
+        }
+    }
+
+    //NOTE: the body is hashed, a retry has to send the same bytes. The response is negotiated from the content type
+    // and the accepted media types, a retry asking for another format is another request
+    public static String fingerprint(String method, String path, String query, String contentType, String accept,
+                                     byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update((method + ' ' + path + '?' + (query == null ? "" : query) + '\n'
+                    + (contentType == null ? "" : contentType) + '\n'
+                    + (accept == null ? "" : accept) + '\n').getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(digest.digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void forget(Execution execution) {
+        synchronized (entries) {
+            entries.remove(execution.key, execution.entry);
+        }
+    }
+
+    //NOTE: requests still running are never evicted, they hold no response yet
+    private void evictExpired(long now) {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (entry.createdMillis + retention > now) {
+                return;
+            }
+            if (entry.response.isDone()) {
+                size -= entry.size;
+                eldest.remove();
+            }
+        }
+    }
+
+    private void evictEldest() {
+        Iterator<Entry> eldest = entries.values().iterator();
+        while (size > maxSize && eldest.hasNext()) {
+            Entry entry = eldest.next();
+            if (entry.size > 0) {
+                size -= entry.size;
+                eldest.remove();
+            }
+        }
+    }
+
+    public static final class Execution {
+
+        private final String key;
+        private final Entry entry;
+        private final boolean owner;
+
+        private Execution(String key, Entry entry, boolean owner) {
+            this.key = key;
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        public boolean isOwner() {
+            return owner;
+        }
+
+        //NOTE: completes exceptionally when the request failed without a response, it can be run again then
+        public CompletableFuture<RecordedResponse> getResponse() {
+            return entry.response;
+        }
+    }
+
+    public static final class RecordedResponse {
+
+        private final int status;
+        private final Map<String, List<String>> headers;
+        private final byte[] body;
+
+        public RecordedResponse(int status, Map<String, List<String>> headers, byte[] body) {
+            this.status = status;
+            this.headers = Collections.unmodifiableMap(headers);
+            this.body = body;
+        }
+
+        public int getStatus() {
+            return status;
+        }
+
+        public Map<String, List<String>> getHeaders() {
+            return headers;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        private long size() {
+            long headerSize = headers.values().stream().flatMap(List::stream).mapToLong(String::length).sum();
+            return body.length + headerSize;
+        }
+    }
+
+    private static final class Entry {
+
+        private final String fingerprint;
+        private final long createdMillis;
+        private final CompletableFuture<RecordedResponse> response = new CompletableFuture<>();
+        private long size;
+
+        private Entry(String fingerprint, long createdMillis) {
+            this.fingerprint = fingerprint;
+            this.createdMillis = createdMillis;
+        }
+    }
+}
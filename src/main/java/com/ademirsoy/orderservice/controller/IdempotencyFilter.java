@@ -0,0 +1,213 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.exception.GlobalExceptionHandler;
+import com.ademirsoy.orderservice.exception.UnprocessableEntityException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs POST and PATCH requests that carry an {@code Idempotency-Key} header at most once, see {@link IdempotencyCache}.
+ * A retry waits for the original request up to the wait timeout, then it is answered with 409 and can be sent again.
+ * Multipart uploads are streamed to storage instead of being buffered, they are not covered.
+ */
+@Slf4j
+@Component
+@Profile("!reactive")
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    private final IdempotencyCache idempotencyCache;
+    private final ObjectMapper objectMapper;
+    private final long waitTimeout;
+    private final int maxBodySize;
+
+    public IdempotencyFilter(IdempotencyCache idempotencyCache, ObjectMapper objectMapper,
+                             @Value("${order-service.idempotency.wait-timeout}") long waitTimeout,
+                             @Value("${order-service.idempotency.max-body-size}") DataSize maxBodySize) {
+        this.idempotencyCache = idempotencyCache;
+        this.objectMapper = objectMapper;
+        this.waitTimeout = waitTimeout;
+        this.maxBodySize = Math.toIntExact(maxBodySize.toBytes());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        String contentType = request.getContentType();
+        return request.getHeader(IdempotencyCache.IDEMPOTENCY_KEY) == null
+                || !(HttpMethod.POST.matches(method) || HttpMethod.PATCH.matches(method))
+                || contentType != null && contentType.startsWith(MediaType.MULTIPART_FORM_DATA_VALUE);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IdempotencyCache.IDEMPOTENCY_KEY);
+        //NOTE: the body is buffered to fingerprint the request, it is bounded like the bulk requests are
+        byte[] body = request.getContentLengthLong() > this.maxBodySize
+                ? null : request.getInputStream().readNBytes(this.maxBodySize + 1);
+        if (body == null || body.length > this.maxBodySize) {
+            this.reject(response, HttpStatus.BAD_REQUEST, IdempotencyCache.IDEMPOTENCY_KEY
+                    + " requests must not have a body larger than " + this.maxBodySize + " bytes");
+            return;
+        }
+        String fingerprint = IdempotencyCache.fingerprint(request.getMethod(), request.getRequestURI(), request.getQueryString(),
+                request.getContentType(), request.getHeader(HttpHeaders.ACCEPT), body);
+        while (true) {
+            IdempotencyCache.Execution execution;
+            try {
+                execution = this.idempotencyCache.begin(key, fingerprint);
+            } catch (UnprocessableEntityException e) {
+                this.reject(response, HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+                return;
+            }
+            if (execution.isOwner()) {
+                this.execute(execution, new CachedBodyRequest(request, body), response, filterChain);
+                return;
+            }
+            try {
+                replay(execution.getResponse().get(this.waitTimeout, TimeUnit.MILLISECONDS), response);
+                AuditLog.record("idempotent-replay", "path", request.getRequestURI());
+                return;
+            } catch (ExecutionException e) {
+                //NOTE: the original request failed without a response, this one runs it again
+            } catch (TimeoutException e) {
+                this.rejectStillRunning(response);
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                this.rejectStillRunning(response);
+                return;
+            }
+        }
+    }
+
+    private void rejectStillRunning(HttpServletResponse response) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, IdempotencyCache.RETRY_AFTER_SECONDS);
+        this.reject(response, HttpStatus.CONFLICT, IdempotencyCache.STILL_RUNNING);
+    }
+
+    private void reject(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+        log.info("Invalid request. {}", message);
+        response.setStatus(status.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        this.objectMapper.writeValue(response.getOutputStream(), new GlobalExceptionHandler.ErrorResponse(message));
+    }
+
+    private void execute(IdempotencyCache.Execution execution, HttpServletRequest request, HttpServletResponse response,
+                         FilterChain filterChain) throws ServletException, IOException {
+        ContentCachingResponseWrapper recordingResponse = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, recordingResponse);
+        } catch (ServletException | IOException | RuntimeException e) {
+            this.idempotencyCache.fail(execution, e);
+            throw e;
+        }
+        Map<String, List<String>> headers = new LinkedHashMap<>();
+        for (String name : IdempotencyCache.REPLAYED_HEADERS) {
+            List<String> values = new ArrayList<>(recordingResponse.getHeaders(name));
+            if (HttpHeaders.CONTENT_TYPE.equals(name) && values.isEmpty() && recordingResponse.getContentType() != null) {
+                values.add(recordingResponse.getContentType());
+            }
+            if (!values.isEmpty()) {
+                headers.put(name, values);
+            }
+        }
+        this.idempotencyCache.complete(execution, new IdempotencyCache.RecordedResponse(recordingResponse.getStatus(),
+                headers, recordingResponse.getContentAsByteArray()));
+        recordingResponse.copyBodyToResponse();
+    }
+
+    private static void replay(IdempotencyCache.RecordedResponse recorded, HttpServletResponse response) throws IOException {
+        response.setStatus(recorded.getStatus());
+        recorded.getHeaders().forEach((name, values) -> values.forEach(value -> response.addHeader(name, value)));
+        response.setHeader(IdempotencyCache.IDEMPOTENT_REPLAYED, "true");
+        response.setContentLength(recorded.getBody().length);
+        response.getOutputStream().write(recorded.getBody());
+    }
+
+    //NOTE: the body has been read to fingerprint the request, the handler reads it again from memory
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream inputStream = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return inputStream.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    //NOTE: the whole body is in memory, it is available at once
+                    try {
+                        readListener.onDataAvailable();
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return inputStream.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return inputStream.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding == null ? StandardCharsets.UTF_8 : Charset.forName(encoding)));
+        }
+    }
+}
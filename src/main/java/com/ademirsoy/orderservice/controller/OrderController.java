@@ -1,85 +1,248 @@
 package com.ademirsoy.orderservice.controller;
 
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
+import com.ademirsoy.orderservice.exception.ServiceUnavailableException;
 import com.ademirsoy.orderservice.model.Order;
 import com.ademirsoy.orderservice.model.request.AssignOrderRequest;
+import com.ademirsoy.orderservice.model.request.BulkTransitionRequest;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
 import com.ademirsoy.orderservice.model.request.ScheduleOrderRequest;
+import com.ademirsoy.orderservice.model.response.BulkResult;
+import com.ademirsoy.orderservice.model.response.OrderEvent;
+import com.ademirsoy.orderservice.model.response.OrderPage;
+import com.ademirsoy.orderservice.model.response.UploadStatus;
+import com.ademirsoy.orderservice.service.OrderEventPublisher;
 import com.ademirsoy.orderservice.service.OrderService;
 import com.ademirsoy.orderservice.service.OrderValidator;
+import com.ademirsoy.orderservice.service.UploadProcessor;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.Collection;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
 
 import static org.springframework.http.MediaType.APPLICATION_JSON_VALUE;
 import static org.springframework.http.MediaType.MULTIPART_FORM_DATA_VALUE;
 
 @Slf4j
 @RestController
+@Profile("!reactive")
 @RequestMapping(value = "/orders",
-        consumes = MediaType.APPLICATION_JSON_VALUE,
-        produces = MediaType.APPLICATION_JSON_VALUE)
+        consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE},
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE})
 public class OrderController {
 
+    private static final int EXPORT_FLUSH_INTERVAL = 1000;
+    private static final String EVENTS_RETRY_AFTER = "5";
+
     private final OrderService orderService;
     private final OrderValidator orderValidator;
+    private final UploadProcessor uploadProcessor;
+    private final OrderEventPublisher orderEventPublisher;
+    private final OrderResponseCache orderResponseCache;
+    private final ObjectMapper objectMapper;
 
-    public OrderController(OrderService orderService, OrderValidator orderValidator) {
+    public OrderController(OrderService orderService, OrderValidator orderValidator, UploadProcessor uploadProcessor,
+                           OrderEventPublisher orderEventPublisher, OrderResponseCache orderResponseCache,
+                           ObjectMapper objectMapper) {
         this.orderService = orderService;
         this.orderValidator = orderValidator;
+        this.uploadProcessor = uploadProcessor;
+        this.orderEventPublisher = orderEventPublisher;
+        this.orderResponseCache = orderResponseCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(consumes = MediaType.ALL_VALUE)
+    public OrderPage getAll(OrderFilter filter,
+                            @RequestParam(value = "cursor", required = false) String cursor,
+                            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+        this.orderValidator.validatePageSize(limit);
+        return this.orderService.retrievePage(filter, cursor, limit);
     }
 
-    @GetMapping
-    public Collection<Order> getAll() {
-        return this.orderService.retrieveAll();
+    @GetMapping(value = "/export", consumes = MediaType.ALL_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> export(OrderFilter filter) {
+        AuditLog.record("export", "filter", filter);
+        StreamingResponseBody body = outputStream -> {
+            try (JsonGenerator generator = this.objectMapper.getFactory().createGenerator(outputStream);
+                 Stream<Order> orders = this.orderService.retrieveAll(filter)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generator.setRootValueSeparator(null);
+                Iterator<Order> iterator = orders.iterator();
+                for (int written = 1; iterator.hasNext(); written++) {
+                    this.objectMapper.writeValue(generator, iterator.next());
+                    generator.writeRaw('\n');
+                    if (written % EXPORT_FLUSH_INTERVAL == 0) {
+                        generator.flush();
+                    }
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
+    }
+
+    //NOTE: the stream ends after the async request timeout, clients reconnect the way EventSource does.
+    // A refused subscriber gets a bare 503, a JSON error body cannot be written as an event stream
+    @GetMapping(value = "/events", consumes = MediaType.ALL_VALUE, produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events(OrderFilter filter) {
+        AuditLog.record("events", "filter", filter);
+        SseEmitter emitter = new SseEmitter();
+        OrderEventPublisher.Subscription subscription;
+        try {
+            subscription = this.orderEventPublisher.subscribe(filter, event -> send(emitter, event), emitter::complete);
+        } catch (ServiceUnavailableException e) {
+            log.warn("Service unavailable: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, EVENTS_RETRY_AFTER)
+                    .build();
+        }
+        emitter.onCompletion(subscription::close);
+        emitter.onTimeout(subscription::close);
+        emitter.onError(e -> subscription.close());
+        return ResponseEntity.ok(emitter);
+    }
+
+    //NOTE: the bytes are cached for the current version. Every format and coding has its own ETag, a client holding the
+    // one it would get receives 304 with the same headers from the entity processor
+    @GetMapping(value = "/{id}", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<byte[]> get(@PathVariable("id") Long orderId, WebRequest webRequest) {
+        Order order = this.orderService.retrieve(orderId);
+        MediaType mediaType = BinaryFormatConfig.negotiate(MediaType.parseMediaTypes(webRequest.getHeader(HttpHeaders.ACCEPT)));
+        OrderResponseCache.Response response = this.orderResponseCache.get(order, mediaType);
+        boolean gzipped = response.getGzippedBody() != null
+                && OrderResponseCache.acceptsGzip(webRequest.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(mediaType)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .eTag(ETags.of(order, mediaType, gzipped));
+        if (gzipped) {
+            return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(response.getGzippedBody());
+        }
+        return builder.body(response.getBody());
     }
 
     @PostMapping
-    public Order create(@RequestBody Order order) {
-        log.info("Create order request received: " + order.toString());
+    public ResponseEntity<Order> create(@RequestBody Order order) {
+        AuditLog.record("create", "photoType", order.getPhotoType(), "date", order.getDate());
         this.orderValidator.validateCreate(order);
-        return this.orderService.create(order);
+        return withETag(this.orderService.create(order));
+    }
+
+    @PostMapping("/bulk")
+    public BulkResult createInBulk(@RequestBody List<Order> orders) {
+        AuditLog.record("bulk-create", "count", orders == null ? 0 : orders.size());
+        this.orderValidator.validateBulkSize(orders);
+        return this.orderService.createAll(orders);
+    }
+
+    @PatchMapping("/bulk")
+    public BulkResult transitionInBulk(@RequestBody BulkTransitionRequest request) {
+        AuditLog.record("bulk-transition", "transition", request.getAction(),
+                "count", request.getOrderIds() == null ? 0 : request.getOrderIds().size());
+        this.orderValidator.validateBulkTransition(request);
+        return this.orderService.transitionAll(request);
     }
 
     @PatchMapping("/{id}/schedule")
-    public Order schedule(@PathVariable("id") Long orderId, @RequestBody ScheduleOrderRequest request) {
-        log.info("Schedule order request received for order: " + orderId + ", request:" + request.toString());
+    public ResponseEntity<Order> schedule(@PathVariable("id") Long orderId, @RequestBody ScheduleOrderRequest request,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("schedule", "order", orderId, "date", request.getDate());
         this.orderValidator.validateSchedule(request);
-        return this.orderService.schedule(request, orderId);
+        return withETag(this.orderService.schedule(request, orderId, ETags.parseIfMatch(ifMatch)));
     }
 
     @PatchMapping("/{id}/assign")
-    public Order assign(@PathVariable("id") Long orderId, @RequestBody AssignOrderRequest request) {
-        log.info("Assign order request received for order: " + orderId + ", photographer:" + request.getPhotographerId());
+    public ResponseEntity<Order> assign(@PathVariable("id") Long orderId, @RequestBody AssignOrderRequest request,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("assign", "order", orderId, "photographer", request.getPhotographerId());
         this.orderValidator.validateAssign(request);
-        return this.orderService.assign(request, orderId);
+        return withETag(this.orderService.assign(request, orderId, ETags.parseIfMatch(ifMatch)));
+    }
+
+    @PatchMapping(value = "/{id}/auto-assign", consumes = MediaType.ALL_VALUE)
+    public ResponseEntity<Order> autoAssign(@PathVariable("id") Long orderId,
+                                            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("auto-assign", "order", orderId);
+        return withETag(this.orderService.autoAssign(orderId, ETags.parseIfMatch(ifMatch)));
     }
 
     @PatchMapping("/{id}/complete")
-    public Order complete(@PathVariable("id") Long orderId) {
-        log.info("Complete order request received for order: " + orderId);
-        return this.orderService.complete(orderId);
+    public ResponseEntity<Order> complete(@PathVariable("id") Long orderId,
+                                          @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("complete", "order", orderId);
+        return withETag(this.orderService.complete(orderId, ETags.parseIfMatch(ifMatch)));
     }
 
     @PatchMapping("/{id}/reject-photos")
-    public Order reject(@PathVariable("id") Long orderId) {
-        log.info("Reject photos request received for order: " + orderId);
-        return this.orderService.reject(orderId);
+    public ResponseEntity<Order> reject(@PathVariable("id") Long orderId,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("reject-photos", "order", orderId);
+        return withETag(this.orderService.reject(orderId, ETags.parseIfMatch(ifMatch)));
     }
 
     @PatchMapping("/{id}/cancel")
-    public Order cancel(@PathVariable("id") Long orderId) {
-        log.info("Cancel order request received for order: " + orderId);
-        return this.orderService.cancel(orderId);
+    public ResponseEntity<Order> cancel(@PathVariable("id") Long orderId,
+                                        @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("cancel", "order", orderId);
+        return withETag(this.orderService.cancel(orderId, ETags.parseIfMatch(ifMatch)));
     }
 
     @RequestMapping(method = RequestMethod.POST,
             consumes = MULTIPART_FORM_DATA_VALUE,
             produces = APPLICATION_JSON_VALUE,
             value = "/{id}/upload")
-    public Order uploadPhoto(@PathVariable("id") Long orderId, @RequestPart(value = "file") MultipartFile file) {
-        log.info("Upload photo request received for order: " + orderId);
-        return this.orderService.upload(orderId, file);
+    public ResponseEntity<Order> uploadPhoto(@PathVariable("id") Long orderId, @RequestPart(value = "file") MultipartFile file,
+                                             @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("upload", "order", orderId);
+        return withETag(this.orderService.upload(orderId, file, ETags.parseIfMatch(ifMatch)));
+    }
+
+    @PostMapping(value = "/{id}/upload", params = "async=true", consumes = MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UploadStatus> uploadPhotoAsync(@PathVariable("id") Long orderId,
+                                                         @RequestPart(value = "file") MultipartFile file,
+                                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch) {
+        AuditLog.record("upload-async", "order", orderId);
+        UploadStatus status = this.uploadProcessor.submit(orderId, file, ETags.parseIfMatch(ifMatch));
+        return ResponseEntity.accepted()
+                .location(URI.create("/orders/" + orderId + "/uploads/" + status.getId()))
+                .body(status);
+    }
+
+    @GetMapping(value = "/{id}/uploads/{uploadId}", consumes = MediaType.ALL_VALUE)
+    public UploadStatus getUploadStatus(@PathVariable("id") Long orderId, @PathVariable("uploadId") String uploadId) {
+        return this.uploadProcessor.retrieveStatus(orderId, uploadId);
+    }
+
+    private static void send(SseEmitter emitter, OrderEvent event) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .id(String.valueOf(event.getId()))
+                    .name("order")
+                    .data(event, MediaType.APPLICATION_JSON));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static ResponseEntity<Order> withETag(Order order) {
+        return ResponseEntity.ok().eTag(ETags.of(order)).body(order);
     }
 }
@@ -0,0 +1,210 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
+import com.ademirsoy.orderservice.model.Order;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Serialized responses of single orders, so a popular order is not serialized again for every GET.
+ * An entry holds the bytes of one order in one media type and the version they were serialized from. Once an
+ * update raised the version of the order the entry no longer matches, the next read serializes the order again
+ * and replaces it. Once the cache holds more than its maximum size, entries are evicted roughly least recently used
+ * first, so entries of orders that are not read anymore make room for the popular ones. Reads take no lock: entries
+ * are evicted in the order they were added, except that an entry read since it was last passed gets another round.
+ * <p>
+ * Responses of at least the gzip size are kept gzipped as well, for clients that accept gzip.
+ */
+@Component
+public class OrderResponseCache {
+
+    private final Map<MediaType, ObjectMapper> objectMappers;
+    private final long maxSize;
+    private final long gzipSize;
+    private final Map<Key, Response> entries = new ConcurrentHashMap<>();
+    //NOTE: every cached key once, in the order it is next considered for eviction
+    private final Queue<Key> evictionQueue = new ConcurrentLinkedQueue<>();
+    private final AtomicLong size = new AtomicLong();
+
+    public OrderResponseCache(ObjectMapper objectMapper,
+                              MappingJackson2CborHttpMessageConverter cborConverter,
+                              MappingJackson2SmileHttpMessageConverter smileConverter,
+                              @Value("${order-service.response-cache.max-size}") DataSize maxSize,
+                              @Value("${order-service.response-cache.gzip-size}") DataSize gzipSize) {
+        this.objectMappers = Map.of(MediaType.APPLICATION_JSON, objectMapper,
+                MediaType.APPLICATION_CBOR, cborConverter.getObjectMapper(),
+                BinaryFormatConfig.APPLICATION_SMILE, smileConverter.getObjectMapper());
+        this.maxSize = maxSize.toBytes();
+        this.gzipSize = gzipSize.toBytes();
+    }
+
+    /**
+     * The order serialized as the given media type, one of {@link BinaryFormatConfig#MEDIA_TYPES}.
+     */
+    public Response get(Order order, MediaType mediaType) {
+        Key key = new Key(order.getId(), mediaType);
+        Response cached = entries.get(key);
+        if (cached != null && Objects.equals(cached.version, order.getVersion())) {
+            //NOTE: only written when not set yet, reads of a popular order do not keep writing to the entry
+            if (!cached.referenced) {
+                cached.referenced = true;
+            }
+            return cached;
+        }
+        Response response = serialize(order, mediaType);
+        if (order.getVersion() != null && response.size() <= maxSize) {
+            put(key, response);
+        }
+        return response;
+    }
+
+    public long getSize() {
+        return size.get();
+    }
+
+    public static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parameters[0].trim())
+                    && !(parameters.length > 1 && parameters[1].replace(" ", "").matches("q=0(\\.0*)?"))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //NOTE: caching is best effort, a response that loses a race with a concurrent put is not cached
+    private void put(Key key, Response response) {
+        Response previous = entries.putIfAbsent(key, response);
+        if (previous == null) {
+            size.addAndGet(response.size());
+            evictionQueue.add(key);
+        } else if (previous.version < response.version && entries.replace(key, previous, response)) {
+            //NOTE: a slower read of an older version must not replace the newer one
+            size.addAndGet(response.size() - previous.size());
+        } else {
+            return;
+        }
+        evict();
+    }
+
+    private void evict() {
+        Key key;
+        while (size.get() > maxSize && (key = evictionQueue.poll()) != null) {
+            Response response = entries.get(key);
+            if (response == null) {
+                continue;
+            }
+            if (response.referenced) {
+                response.referenced = false;
+                evictionQueue.add(key);
+            } else if (entries.remove(key, response)) {
+                size.addAndGet(-response.size());
+            } else {
+                //NOTE: replaced by a newer version in the meantime, it stays cached
+                evictionQueue.add(key);
+            }
+        }
+    }
+
+    private Response serialize(Order order, MediaType mediaType) {
+        ObjectMapper objectMapper = objectMappers.get(mediaType);
+        if (objectMapper == null) {
+            throw new IllegalArgumentException("Unsupported media type: " + mediaType);
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(order);
+            return new Response(order.getVersion() == null ? 0 : order.getVersion(), body,
+                    body.length >= gzipSize ? gzip(body) : null);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(body.length / 2);
+        try (GZIPOutputStream outputStream = new GZIPOutputStream(compressed)) {
+            outputStream.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        //NOTE: not worth a Content-Encoding when it does not get smaller
+        return compressed.size() < body.length ? compressed.toByteArray() : null;
+    }
+
+    public static final class Response {
+
+        private final long version;
+        private final byte[] body;
+        private final byte[] gzippedBody;
+        //NOTE: set by a read, cleared when eviction passes the entry
+        private volatile boolean referenced;
+
+        private Response(long version, byte[] body, byte[] gzippedBody) {
+            this.version = version;
+            this.body = body;
+            this.gzippedBody = gzippedBody;
+        }
+
+        public byte[] getBody() {
+            return body;
+        }
+
+        //NOTE: null when the response is too small to be gzipped
+        public byte[] getGzippedBody() {
+            return gzippedBody;
+        }
+
+        private long size() {
+            return body.length + (gzippedBody == null ? 0 : gzippedBody.length);
+        }
+    }
+
+    private static final class Key {
+
+        private final long orderId;
+        private final MediaType mediaType;
+
+        private Key(long orderId, MediaType mediaType) {
+            this.orderId = orderId;
+            this.mediaType = mediaType;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return orderId == key.orderId && mediaType.equals(key.mediaType);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(orderId) * 31 + mediaType.hashCode();
+        }
+    }
+}
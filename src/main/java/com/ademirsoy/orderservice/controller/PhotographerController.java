@@ -1,38 +1,59 @@
 package com.ademirsoy.orderservice.controller;
 
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
 import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.model.response.Availability;
+import com.ademirsoy.orderservice.service.OrderValidator;
 import com.ademirsoy.orderservice.service.PhotographerService;
-import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.time.LocalDate;
 import java.util.List;
 
-@Slf4j
 @RestController
+@Profile("!reactive")
 @RequestMapping(value = "/photographers",
-        consumes = MediaType.APPLICATION_JSON_VALUE,
-        produces = MediaType.APPLICATION_JSON_VALUE)
+        consumes = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE},
+        produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_CBOR_VALUE, BinaryFormatConfig.APPLICATION_SMILE_VALUE})
 public class PhotographerController {
 
     private final PhotographerService photographerService;
+    private final OrderValidator orderValidator;
 
-    public PhotographerController(PhotographerService photographerService) {
+    public PhotographerController(PhotographerService photographerService, OrderValidator orderValidator) {
         this.photographerService = photographerService;
+        this.orderValidator = orderValidator;
     }
 
     @PostMapping
     public Photographer create(@RequestBody Photographer photographer) {
-        log.info("Create photographer request received for: " + photographer.getName());
+        AuditLog.record("create-photographer");
         return photographerService.create(photographer);
     }
 
     @PostMapping("/bulk")
     public List<Photographer> createInBulk(@RequestBody List<Photographer> photographers) {
-        log.info("Create photographers request received for: " + photographers);
+        AuditLog.record("bulk-create-photographer", "count", photographers == null ? 0 : photographers.size());
         return photographerService.createAll(photographers);
     }
+
+    @GetMapping(value = "/{id}/availability", consumes = MediaType.ALL_VALUE)
+    public Availability getAvailability(@PathVariable("id") Long photographerId,
+                                        @RequestParam(value = "from", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                        @RequestParam(value = "to", required = false)
+                                        @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                        @RequestParam(value = "timezone", required = false) String timezone) {
+        this.orderValidator.validateAvailabilityRange(from, to);
+        return photographerService.retrieveAvailability(photographerId, from, to, this.orderValidator.validateTimezone(timezone));
+    }
 }
@@ -1,9 +1,12 @@
 package com.ademirsoy.orderservice.exception;
 
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -13,13 +16,21 @@ import org.springframework.web.bind.annotation.ResponseStatus;
 
 @Slf4j
 @ControllerAdvice
+@Profile("!reactive")
 public class GlobalExceptionHandler {
 
+    private final MeterRegistry meterRegistry;
+
+    public GlobalExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
     @ExceptionHandler(Exception.class)
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ResponseBody
     public ErrorResponse handleAllExceptions(Exception ex) {
-        log.error("Internal Server Error, " + ex.getMessage(), ex);
+        log.error("Internal Server Error, {}", ex.getMessage(), ex);
+        this.count(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return new ErrorResponse(ex.getMessage());
     }
 
@@ -28,7 +39,26 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.BAD_REQUEST)
     @ResponseBody
     public ErrorResponse handleBadRequestException(Exception ex) {
-        log.info("Invalid request. " + ex.getMessage());
+        log.info("Invalid request. {}", ex.getMessage());
+        this.count(ex, HttpStatus.BAD_REQUEST);
+        return new ErrorResponse(ex.getMessage());
+    }
+
+    @ExceptionHandler(PreconditionFailedException.class)
+    @ResponseStatus(HttpStatus.PRECONDITION_FAILED)
+    @ResponseBody
+    public ErrorResponse handlePreconditionFailedException(Exception ex) {
+        log.info("Precondition failed. {}", ex.getMessage());
+        this.count(ex, HttpStatus.PRECONDITION_FAILED);
+        return new ErrorResponse(ex.getMessage());
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    @ResponseStatus(HttpStatus.SERVICE_UNAVAILABLE)
+    @ResponseBody
+    public ErrorResponse handleServiceUnavailableException(Exception ex) {
+        log.warn("Service unavailable: {}", ex.getMessage());
+        this.count(ex, HttpStatus.SERVICE_UNAVAILABLE);
         return new ErrorResponse(ex.getMessage());
     }
 
@@ -36,10 +66,20 @@ public class GlobalExceptionHandler {
     @ResponseStatus(HttpStatus.INTERNAL_SERVER_ERROR)
     @ResponseBody
     public ErrorResponse handleUnexpectedErrors(Exception ex) {
-        log.info("Unexpected error: " + ex.getMessage());
+        log.info("Unexpected error: {}", ex.getMessage());
+        this.count(ex, HttpStatus.INTERNAL_SERVER_ERROR);
         return new ErrorResponse(ex.getMessage());
     }
 
+    private void count(Exception ex, HttpStatus status) {
+        Counter.builder("order-service.errors")
+                .description("Exceptions turned into error responses")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(this.meterRegistry)
+                .increment();
+    }
+
     @Data
     @AllArgsConstructor
     @NoArgsConstructor
@@ -16,4 +16,8 @@ public class AbstractEntity {
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss.SSS[XXX]", timezone = "UTC")
     private Instant modifiedDate;
+
+    //NOTE: incremented by every update, it is the ETag of the entity
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long version;
 }
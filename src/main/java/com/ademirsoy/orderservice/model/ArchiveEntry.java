@@ -0,0 +1,16 @@
+package com.ademirsoy.orderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ArchiveEntry {
+
+    private String name;
+    private long size;
+    private long compressedSize;
+    private long crc;
+}
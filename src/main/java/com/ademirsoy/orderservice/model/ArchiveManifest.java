@@ -0,0 +1,45 @@
+package com.ademirsoy.orderservice.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Contents of an uploaded archive, recorded while the archive was verified.
+ */
+@NoArgsConstructor
+@AllArgsConstructor
+@Data
+public class ArchiveManifest {
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of(
+            "jpg", "jpeg", "png", "gif", "bmp", "webp", "tif", "tiff", "heic", "heif", "dng", "cr2", "cr3", "nef", "arw", "raf", "orf");
+
+    //NOTE: the storage key, same as the matching element of Order.files
+    private String file;
+    private int imageCount;
+    private long totalSize;
+    private List<ArchiveEntry> entries;
+
+    public static ArchiveManifest of(String file, List<ArchiveEntry> entries) {
+        int imageCount = 0;
+        long totalSize = 0;
+        for (ArchiveEntry entry : entries) {
+            totalSize += entry.getSize();
+            if (isImage(entry.getName())) {
+                imageCount++;
+            }
+        }
+        return new ArchiveManifest(file, imageCount, totalSize, entries);
+    }
+
+    private static boolean isImage(String name) {
+        int dot = name.lastIndexOf('.');
+        return !name.endsWith("/") && dot >= 0
+                && IMAGE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
@@ -1,10 +1,12 @@
 package com.ademirsoy.orderservice.model;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import lombok.Data;
 
 import java.time.*;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.TimeZone;
 
@@ -33,6 +35,8 @@ public class Order extends AbstractEntity {
     private Long photographerId;
     @JsonProperty(access = JsonProperty.Access.READ_ONLY)
     private List<String> files;
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private List<ArchiveManifest> manifests;
 
     public Instant getDateTime() {
         if (this.date == null || this.time == null) {
@@ -42,6 +46,12 @@ public class Order extends AbstractEntity {
         return LocalDateTime.of(this.date, this.time).atZone(zoneId).toInstant();
     }
 
+    @JsonIgnore
+    public Instant getEndDateTime() {
+        Instant dateTime = this.getDateTime();
+        return dateTime == null ? null : dateTime.plus(this.durationInHours, ChronoUnit.HOURS);
+    }
+
     @Override
     public String toString() {
         return "Order{" +
@@ -0,0 +1,5 @@
+package com.ademirsoy.orderservice.model;
+
+public enum UploadState {
+    QUEUED, PROCESSING, COMPLETED, FAILED
+}
@@ -0,0 +1,18 @@
+package com.ademirsoy.orderservice.model.request;
+
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkTransitionRequest {
+
+    private Action action;
+    private List<Long> orderIds;
+    //NOTE: only used by ASSIGN
+    private Long photographerId;
+
+    public enum Action {
+        ASSIGN, COMPLETE, REJECT_PHOTOS, CANCEL
+    }
+}
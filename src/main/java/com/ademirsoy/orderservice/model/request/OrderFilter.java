@@ -0,0 +1,21 @@
+package com.ademirsoy.orderservice.model.request;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.PhotoType;
+import lombok.Data;
+
+@Data
+public class OrderFilter {
+
+    private OrderState state;
+    private Long photographerId;
+    private PhotoType photoType;
+
+    public boolean matches(Order order) {
+        return order != null
+                && (state == null || state.equals(order.getState()))
+                && (photographerId == null || photographerId.equals(order.getPhotographerId()))
+                && (photoType == null || photoType.equals(order.getPhotoType()));
+    }
+}
@@ -0,0 +1,18 @@
+package com.ademirsoy.orderservice.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class Availability {
+
+    private Long photographerId;
+    private String timezone;
+    //NOTE: free intervals within business hours, in the requested timezone
+    private List<TimeSlot> freeSlots;
+}
@@ -0,0 +1,25 @@
+package com.ademirsoy.orderservice.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkItemResult {
+
+    //NOTE: position of the item in the request
+    private int index;
+    private Long orderId;
+    private boolean success;
+    private String error;
+
+    public static BulkItemResult succeeded(int index, Long orderId) {
+        return new BulkItemResult(index, orderId, true, null);
+    }
+
+    public static BulkItemResult failed(int index, Long orderId, String error) {
+        return new BulkItemResult(index, orderId, false, error);
+    }
+}
@@ -0,0 +1,22 @@
+package com.ademirsoy.orderservice.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BulkResult {
+
+    private int succeeded;
+    private int failed;
+    private List<BulkItemResult> results;
+
+    public static BulkResult of(List<BulkItemResult> results) {
+        int succeeded = (int) results.stream().filter(BulkItemResult::isSuccess).count();
+        return new BulkResult(succeeded, results.size() - succeeded, results);
+    }
+}
@@ -0,0 +1,30 @@
+package com.ademirsoy.orderservice.model.response;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//NOTE: a copy of the order taken when it changed, the order itself keeps changing after it is published
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderEvent {
+
+    //NOTE: increases with every event, so clients can tell whether they missed one
+    private long id;
+    private Long orderId;
+    private Long version;
+    private OrderState previousState;
+    private OrderState state;
+    private Long photographerId;
+    private Instant changedDate;
+
+    public static OrderEvent of(long id, Order order, OrderState previousState) {
+        return new OrderEvent(id, order.getId(), order.getVersion(), previousState, order.getState(),
+                order.getPhotographerId(), Instant.now());
+    }
+}
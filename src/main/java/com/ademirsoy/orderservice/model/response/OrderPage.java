@@ -0,0 +1,19 @@
+package com.ademirsoy.orderservice.model.response;
+
+import com.ademirsoy.orderservice.model.Order;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderPage {
+
+    private List<Order> orders;
+
+    //NOTE: opaque, pass it back as the cursor parameter to fetch the next page. null on the last page
+    private String nextCursor;
+}
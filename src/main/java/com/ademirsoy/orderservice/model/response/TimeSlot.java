@@ -0,0 +1,16 @@
+package com.ademirsoy.orderservice.model.response;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.OffsetDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class TimeSlot {
+
+    private OffsetDateTime start;
+    private OffsetDateTime end;
+}
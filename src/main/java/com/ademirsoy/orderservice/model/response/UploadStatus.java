@@ -0,0 +1,29 @@
+package com.ademirsoy.orderservice.model.response;
+
+import com.ademirsoy.orderservice.model.UploadState;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+//NOTE: updated by the upload processor while clients poll it, hence the volatile fields
+@Data
+@NoArgsConstructor
+public class UploadStatus {
+
+    private String id;
+    private Long orderId;
+    private String fileName;
+    private volatile UploadState state;
+    private volatile String error;
+    private Instant acceptedDate;
+    private volatile Instant completedDate;
+
+    public UploadStatus(String id, Long orderId, String fileName) {
+        this.id = id;
+        this.orderId = orderId;
+        this.fileName = fileName;
+        this.state = UploadState.QUEUED;
+        this.acceptedDate = Instant.now();
+    }
+}
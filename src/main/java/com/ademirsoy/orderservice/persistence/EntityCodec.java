@@ -0,0 +1,273 @@
+package com.ademirsoy.orderservice.persistence;
+
+import com.ademirsoy.orderservice.model.AbstractEntity;
+import com.ademirsoy.orderservice.model.ArchiveEntry;
+import com.ademirsoy.orderservice.model.ArchiveManifest;
+import com.ademirsoy.orderservice.model.Contact;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.PhotoType;
+import com.ademirsoy.orderservice.model.Photographer;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * Compact binary encoding of the persisted entities.
+ * Enums are written by ordinal, so new constants must only be appended.
+ * Records of older format versions stay readable, the journal and snapshots may still contain them.
+ */
+public final class EntityCodec {
+
+    public static final byte ORDER = 1;
+    public static final byte PHOTOGRAPHER = 2;
+
+    //NOTE: 2 added the archive manifests of orders, 3 the entity version
+    private static final byte FORMAT_VERSION = 3;
+
+    private EntityCodec() {
+    }
+
+    public static byte[] encode(Order order) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(ORDER);
+            out.writeByte(FORMAT_VERSION);
+            writeOrder(out, order);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte[] encode(Photographer photographer) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeByte(PHOTOGRAPHER);
+            out.writeByte(FORMAT_VERSION);
+            writeEntity(out, photographer);
+            writeLong(out, photographer.getId());
+            writeString(out, photographer.getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    public static byte typeOf(byte[] record) {
+        return record[0];
+    }
+
+    public static Order decodeOrder(byte[] record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            return readOrder(in, readVersion(in, ORDER));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static Photographer decodePhotographer(byte[] record) {
+        try {
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(record));
+            byte version = readVersion(in, PHOTOGRAPHER);
+            Photographer photographer = new Photographer();
+            readEntity(in, photographer, version);
+            photographer.setId(readLong(in));
+            photographer.setName(readString(in));
+            return photographer;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static byte readVersion(DataInput in, byte expectedType) throws IOException {
+        byte type = in.readByte();
+        byte version = in.readByte();
+        if (type != expectedType || version < 1 || version > FORMAT_VERSION) {
+            throw new IOException("Unsupported record, type: " + type + ", version: " + version);
+        }
+        return version;
+    }
+
+    private static void writeOrder(DataOutput out, Order order) throws IOException {
+        writeEntity(out, order);
+        writeLong(out, order.getId());
+        Contact contact = order.getContact();
+        out.writeBoolean(contact != null);
+        if (contact != null) {
+            writeString(out, contact.getName());
+            writeString(out, contact.getSurname());
+            writeString(out, contact.getEmail());
+            writeString(out, contact.getCellNumber());
+        }
+        writeEnum(out, order.getPhotoType());
+        writeString(out, order.getTitle());
+        writeString(out, order.getLogisticInfo());
+        writeLong(out, order.getDate() == null ? null : order.getDate().toEpochDay());
+        writeLong(out, order.getTime() == null ? null : order.getTime().toNanoOfDay());
+        writeString(out, order.getTimezone() == null ? null : order.getTimezone().getID());
+        out.writeInt(order.getDurationInHours());
+        writeEnum(out, order.getState());
+        writeLong(out, order.getPhotographerId());
+        List<String> files = order.getFiles();
+        out.writeInt(files == null ? -1 : files.size());
+        if (files != null) {
+            for (String file : files) {
+                writeString(out, file);
+            }
+        }
+        List<ArchiveManifest> manifests = order.getManifests();
+        out.writeInt(manifests == null ? -1 : manifests.size());
+        if (manifests != null) {
+            for (ArchiveManifest manifest : manifests) {
+                writeManifest(out, manifest);
+            }
+        }
+    }
+
+    private static void writeManifest(DataOutput out, ArchiveManifest manifest) throws IOException {
+        writeString(out, manifest.getFile());
+        out.writeInt(manifest.getImageCount());
+        out.writeLong(manifest.getTotalSize());
+        out.writeInt(manifest.getEntries().size());
+        for (ArchiveEntry entry : manifest.getEntries()) {
+            writeString(out, entry.getName());
+            out.writeLong(entry.getSize());
+            out.writeLong(entry.getCompressedSize());
+            out.writeLong(entry.getCrc());
+        }
+    }
+
+    private static ArchiveManifest readManifest(DataInput in) throws IOException {
+        ArchiveManifest manifest = new ArchiveManifest();
+        manifest.setFile(readString(in));
+        manifest.setImageCount(in.readInt());
+        manifest.setTotalSize(in.readLong());
+        int entryCount = in.readInt();
+        List<ArchiveEntry> entries = new ArrayList<>(entryCount);
+        for (int i = 0; i < entryCount; i++) {
+            entries.add(new ArchiveEntry(readString(in), in.readLong(), in.readLong(), in.readLong()));
+        }
+        manifest.setEntries(entries);
+        return manifest;
+    }
+
+    private static Order readOrder(DataInput in, byte version) throws IOException {
+        Order order = new Order();
+        readEntity(in, order, version);
+        order.setId(readLong(in));
+        if (in.readBoolean()) {
+            order.setContact(new Contact(readString(in), readString(in), readString(in), readString(in)));
+        }
+        order.setPhotoType(readEnum(in, PhotoType.values()));
+        order.setTitle(readString(in));
+        order.setLogisticInfo(readString(in));
+        Long epochDay = readLong(in);
+        order.setDate(epochDay == null ? null : LocalDate.ofEpochDay(epochDay));
+        Long nanoOfDay = readLong(in);
+        order.setTime(nanoOfDay == null ? null : LocalTime.ofNanoOfDay(nanoOfDay));
+        String timezone = readString(in);
+        order.setTimezone(timezone == null ? null : TimeZone.getTimeZone(timezone));
+        order.setDurationInHours(in.readInt());
+        order.setState(readEnum(in, OrderState.values()));
+        order.setPhotographerId(readLong(in));
+        int fileCount = in.readInt();
+        if (fileCount >= 0) {
+            List<String> files = new ArrayList<>(fileCount);
+            for (int i = 0; i < fileCount; i++) {
+                files.add(readString(in));
+            }
+            order.setFiles(files);
+        }
+        if (version >= 2) {
+            int manifestCount = in.readInt();
+            if (manifestCount >= 0) {
+                List<ArchiveManifest> manifests = new ArrayList<>(manifestCount);
+                for (int i = 0; i < manifestCount; i++) {
+                    manifests.add(readManifest(in));
+                }
+                order.setManifests(manifests);
+            }
+        }
+        return order;
+    }
+
+    private static void writeEntity(DataOutput out, AbstractEntity entity) throws IOException {
+        writeInstant(out, entity.getCreatedDate());
+        writeInstant(out, entity.getModifiedDate());
+        writeLong(out, entity.getVersion());
+    }
+
+    private static void readEntity(DataInput in, AbstractEntity entity, byte version) throws IOException {
+        entity.setCreatedDate(readInstant(in));
+        entity.setModifiedDate(readInstant(in));
+        //NOTE: entities written before versioning continue from the first version
+        entity.setVersion(version >= 3 ? readLong(in) : Long.valueOf(1L));
+    }
+
+    private static void writeInstant(DataOutput out, Instant instant) throws IOException {
+        out.writeBoolean(instant != null);
+        if (instant != null) {
+            out.writeLong(instant.getEpochSecond());
+            out.writeInt(instant.getNano());
+        }
+    }
+
+    private static Instant readInstant(DataInput in) throws IOException {
+        return in.readBoolean() ? Instant.ofEpochSecond(in.readLong(), in.readInt()) : null;
+    }
+
+    private static void writeLong(DataOutput out, Long value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeLong(value);
+        }
+    }
+
+    private static Long readLong(DataInput in) throws IOException {
+        return in.readBoolean() ? in.readLong() : null;
+    }
+
+    private static void writeEnum(DataOutput out, Enum<?> value) throws IOException {
+        out.writeByte(value == null ? -1 : value.ordinal());
+    }
+
+    private static <E extends Enum<E>> E readEnum(DataInput in, E[] values) throws IOException {
+        byte ordinal = in.readByte();
+        return ordinal < 0 ? null : values[ordinal];
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
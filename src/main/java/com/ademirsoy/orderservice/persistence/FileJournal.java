@@ -0,0 +1,321 @@
+package com.ademirsoy.orderservice.persistence;
+
+import com.ademirsoy.orderservice.exception.DataAccessException;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.TRUNCATE_EXISTING;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * {@link Journal} backed by numbered segment files and snapshots in a directory.
+ * Each record is framed as [length][crc32][payload], in segments as well as in snapshots.
+ * <p>
+ * Callers only hand the encoded record over to a bounded queue, a dedicated writer thread
+ * drains it in batches and forces each batch to disk with a single fsync (group commit).
+ * A torn or corrupt tail left by a crash is truncated when the journal is opened.
+ * <p>
+ * A snapshot named after segment N holds the state of every record in the segments before N,
+ * so recovery loads the latest snapshot and replays segments N and above.
+ */
+@Slf4j
+public class FileJournal implements Journal {
+
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".snap";
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+    private static final int BUFFER_SIZE = 1024 * 1024;
+    private static final int MAX_BATCH_SIZE = 4096;
+    //NOTE: compared by identity, asks the writer to continue in a new segment
+    private static final byte[] ROTATE = new byte[0];
+
+    private final Path directory;
+    private final BlockingQueue<byte[]> queue;
+    private final Thread writer;
+    private final long recoveredSnapshot;
+    private final long recoveredSegment;
+    private final long recoveredSize;
+
+    //NOTE: owned by the writer thread after construction
+    private FileChannel channel;
+    private long activeSegment;
+    private volatile CompletableFuture<Long> pendingRotation;
+
+    private volatile boolean closed;
+    private volatile IOException failure;
+
+    public FileJournal(Path directory, int queueCapacity) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        for (long unfinished : this.list(SNAPSHOT_PREFIX, ".tmp")) {
+            Files.deleteIfExists(directory.resolve(SNAPSHOT_PREFIX + unfinished + ".tmp"));
+        }
+        List<Long> snapshots = this.list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX);
+        List<Long> segments = this.list(SEGMENT_PREFIX, SEGMENT_SUFFIX);
+        this.recoveredSnapshot = snapshots.isEmpty() ? 0 : snapshots.get(snapshots.size() - 1);
+        this.activeSegment = Math.max(segments.isEmpty() ? 1 : segments.get(segments.size() - 1), this.recoveredSnapshot);
+        this.recoveredSegment = this.activeSegment;
+
+        Path segment = this.segmentPath(this.activeSegment);
+        this.channel = FileChannel.open(segment, CREATE, READ, WRITE);
+        this.recoveredSize = readRecords(segment, this.channel.size(), record -> {
+        });
+        if (this.recoveredSize < this.channel.size()) {
+            log.warn("Truncating journal segment {} from {} to {} bytes, the tail was not completely written",
+                    segment, this.channel.size(), this.recoveredSize);
+            this.channel.truncate(this.recoveredSize);
+        }
+        this.channel.position(this.recoveredSize);
+
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.writer = new Thread(this::writeLoop, "journal-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    @Override
+    public void append(byte[] record) {
+        try {
+            //NOTE: blocks while the writer is behind, but never on a writer that has stopped
+            do {
+                this.checkWritable();
+            } while (!queue.offer(record, 100, TimeUnit.MILLISECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while appending to the journal");
+        }
+    }
+
+    @Override
+    public void replay(Consumer<byte[]> consumer) throws IOException {
+        if (recoveredSnapshot > 0) {
+            Path snapshot = this.snapshotPath(recoveredSnapshot);
+            readRecords(snapshot, Files.size(snapshot), consumer);
+        }
+        for (long segment : this.list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (segment < recoveredSnapshot || segment > recoveredSegment) {
+                continue;
+            }
+            Path path = this.segmentPath(segment);
+            long limit = segment == recoveredSegment ? recoveredSize : Files.size(path);
+            long read = readRecords(path, limit, consumer);
+            if (read < limit) {
+                log.warn("Journal segment {} is unreadable after {} of {} bytes", path, read, limit);
+            }
+        }
+    }
+
+    @Override
+    public synchronized void snapshot(Supplier<Stream<byte[]>> records) throws IOException {
+        long firstSegment = this.rotate();
+        Path temporary = directory.resolve(SNAPSHOT_PREFIX + firstSegment + ".tmp");
+        long count = 0;
+        try (FileChannel out = FileChannel.open(temporary, CREATE, TRUNCATE_EXISTING, WRITE);
+             Stream<byte[]> stream = records.get()) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            CRC32 crc = new CRC32();
+            Iterator<byte[]> iterator = stream.iterator();
+            while (iterator.hasNext()) {
+                writeRecord(out, buffer, crc, iterator.next());
+                count++;
+            }
+            flush(out, buffer);
+            out.force(true);
+        }
+        Files.move(temporary, this.snapshotPath(firstSegment), StandardCopyOption.ATOMIC_MOVE);
+        for (long segment : this.list(SEGMENT_PREFIX, SEGMENT_SUFFIX)) {
+            if (segment < firstSegment) {
+                Files.deleteIfExists(this.segmentPath(segment));
+            }
+        }
+        for (long snapshot : this.list(SNAPSHOT_PREFIX, SNAPSHOT_SUFFIX)) {
+            if (snapshot < firstSegment) {
+                Files.deleteIfExists(this.snapshotPath(snapshot));
+            }
+        }
+        log.info("Wrote snapshot of {} records, journal continues from segment {}", count, firstSegment);
+    }
+
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        channel.close();
+    }
+
+    private long rotate() throws IOException {
+        CompletableFuture<Long> rotation = new CompletableFuture<>();
+        pendingRotation = rotation;
+        this.append(ROTATE);
+        try {
+            return rotation.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DataAccessException("Interrupted while rotating the journal");
+        } catch (ExecutionException e) {
+            throw new IOException("Failed to rotate the journal", e.getCause());
+        }
+    }
+
+    private void checkWritable() {
+        if (closed) {
+            throw new DataAccessException("Journal is closed");
+        }
+        if (failure != null) {
+            throw new DataAccessException("Journal is not writable: " + failure.getMessage());
+        }
+    }
+
+    private void writeLoop() {
+        List<byte[]> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CRC32 crc = new CRC32();
+        while (!closed || !queue.isEmpty()) {
+            try {
+                byte[] first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH_SIZE - 1);
+                for (byte[] record : batch) {
+                    if (record == ROTATE) {
+                        flush(channel, buffer);
+                        channel.force(false);
+                        this.openNextSegment();
+                    } else {
+                        writeRecord(channel, buffer, crc, record);
+                    }
+                }
+                flush(channel, buffer);
+                channel.force(false);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException e) {
+                log.error("Failed to write to journal in {}", directory, e);
+                failure = e;
+                if (pendingRotation != null) {
+                    pendingRotation.completeExceptionally(e);
+                }
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void openNextSegment() throws IOException {
+        FileChannel next = FileChannel.open(this.segmentPath(activeSegment + 1), CREATE, READ, WRITE);
+        channel.close();
+        channel = next;
+        activeSegment++;
+        pendingRotation.complete(activeSegment);
+    }
+
+    private static void writeRecord(FileChannel channel, ByteBuffer buffer, CRC32 crc, byte[] record) throws IOException {
+        crc.reset();
+        crc.update(record);
+        if (buffer.remaining() < HEADER_SIZE + record.length) {
+            flush(channel, buffer);
+        }
+        buffer.putInt(record.length).putInt((int) crc.getValue());
+        if (buffer.remaining() < record.length) {
+            flush(channel, buffer);
+            writeFully(channel, ByteBuffer.wrap(record));
+        } else {
+            buffer.put(record);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        writeFully(channel, buffer);
+        buffer.clear();
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private static long readRecords(Path file, long limit, Consumer<byte[]> consumer) throws IOException {
+        long position = 0;
+        try (InputStream stream = Channels.newInputStream(FileChannel.open(file, READ));
+             DataInputStream in = new DataInputStream(new BufferedInputStream(stream, BUFFER_SIZE))) {
+            CRC32 crc = new CRC32();
+            while (position + HEADER_SIZE <= limit) {
+                int length = in.readInt();
+                int checksum = in.readInt();
+                if (length < 0 || position + HEADER_SIZE + length > limit) {
+                    break;
+                }
+                byte[] record = new byte[length];
+                in.readFully(record);
+                crc.reset();
+                crc.update(record);
+                if ((int) crc.getValue() != checksum) {
+                    break;
+                }
+                consumer.accept(record);
+                position += HEADER_SIZE + length;
+            }
+        } catch (EOFException e) {
+            //NOTE: a partially written record, everything before it is valid
+        }
+        return position;
+    }
+
+    private List<Long> list(String prefix, String suffix) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.endsWith(suffix))
+                    .map(name -> Long.valueOf(name.substring(prefix.length(), name.length() - suffix.length())))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+
+    private Path snapshotPath(long firstSegment) {
+        return directory.resolve(String.format("%s%019d%s", SNAPSHOT_PREFIX, firstSegment, SNAPSHOT_SUFFIX));
+    }
+}
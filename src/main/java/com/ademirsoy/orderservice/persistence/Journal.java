@@ -0,0 +1,27 @@
+package com.ademirsoy.orderservice.persistence;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of encoded entity records, see {@link EntityCodec}.
+ */
+public interface Journal extends Closeable {
+
+    void append(byte[] record);
+
+    /**
+     * Replays the latest snapshot followed by every record appended after it.
+     */
+    void replay(Consumer<byte[]> consumer) throws IOException;
+
+    /**
+     * Writes the supplied records as a new snapshot and drops the part of the journal it covers.
+     * Records are requested only after the journal has switched to a new segment, so every change
+     * that the snapshot misses is still replayed from the journal.
+     */
+    void snapshot(Supplier<Stream<byte[]>> records) throws IOException;
+}
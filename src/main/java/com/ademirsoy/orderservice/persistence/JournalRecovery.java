@@ -0,0 +1,43 @@
+package com.ademirsoy.orderservice.persistence;
+
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.repository.PhotographerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rebuilds the repositories from the journal before the application starts serving requests.
+ */
+@Slf4j
+@Component
+public class JournalRecovery {
+
+    private final Journal journal;
+    private final OrderRepository orderRepository;
+    private final PhotographerRepository photographerRepository;
+
+    public JournalRecovery(Journal journal, OrderRepository orderRepository, PhotographerRepository photographerRepository) {
+        this.journal = journal;
+        this.orderRepository = orderRepository;
+        this.photographerRepository = photographerRepository;
+    }
+
+    @PostConstruct
+    public void recover() throws IOException {
+        long start = System.nanoTime();
+        AtomicLong records = new AtomicLong();
+        journal.replay(record -> {
+            records.incrementAndGet();
+            if (EntityCodec.typeOf(record) == EntityCodec.ORDER) {
+                orderRepository.restore(EntityCodec.decodeOrder(record));
+            } else if (EntityCodec.typeOf(record) == EntityCodec.PHOTOGRAPHER) {
+                photographerRepository.restore(EntityCodec.decodePhotographer(record));
+            }
+        });
+        log.info("Replayed {} journal records in {} ms", records.get(), (System.nanoTime() - start) / 1_000_000);
+    }
+}
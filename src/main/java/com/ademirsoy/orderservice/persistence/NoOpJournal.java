@@ -0,0 +1,24 @@
+package com.ademirsoy.orderservice.persistence;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+public class NoOpJournal implements Journal {
+
+    @Override
+    public void append(byte[] record) {
+    }
+
+    @Override
+    public void replay(Consumer<byte[]> consumer) {
+    }
+
+    @Override
+    public void snapshot(Supplier<Stream<byte[]>> records) {
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,42 @@
+package com.ademirsoy.orderservice.persistence;
+
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.repository.PhotographerRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.stream.Stream;
+
+/**
+ * Periodically snapshots the repositories, so that startup does not have to replay the whole history.
+ * Iteration is weakly consistent and does not block writers, an order changed while it is being
+ * written is fixed up on recovery by its record in the journal after the snapshot.
+ */
+@Slf4j
+@Component
+public class SnapshotScheduler {
+
+    private final Journal journal;
+    private final OrderRepository orderRepository;
+    private final PhotographerRepository photographerRepository;
+
+    public SnapshotScheduler(Journal journal, OrderRepository orderRepository, PhotographerRepository photographerRepository) {
+        this.journal = journal;
+        this.orderRepository = orderRepository;
+        this.photographerRepository = photographerRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${order-service.snapshot.interval}",
+            initialDelayString = "${order-service.snapshot.interval}")
+    public void snapshot() {
+        try {
+            journal.snapshot(() -> Stream.concat(
+                    photographerRepository.findAll().stream().map(EntityCodec::encode),
+                    orderRepository.findAll().stream().map(EntityCodec::encode)));
+        } catch (IOException e) {
+            log.error("Failed to write snapshot", e);
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.controller.AuditLog;
+import com.ademirsoy.orderservice.controller.IdempotencyCache;
+import com.ademirsoy.orderservice.exception.GlobalExceptionHandler.ErrorResponse;
+import com.ademirsoy.orderservice.exception.UnprocessableEntityException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs POST and PATCH requests that carry an {@code Idempotency-Key} header at most once, see {@link IdempotencyCache}.
+ * A retry waiting for the original request does not block, its response is written once the original completes or it is
+ * answered with 409 after the wait timeout. The original request runs to the end even if its client goes away, so its
+ * response can still be replayed. Multipart uploads are not covered, like on the servlet stack.
+ */
+@Slf4j
+@Component
+@Profile("reactive")
+public class IdempotencyWebFilter implements WebFilter {
+
+    private final IdempotencyCache idempotencyCache;
+    private final ObjectMapper objectMapper;
+    private final Duration waitTimeout;
+    private final int maxBodySize;
+
+    public IdempotencyWebFilter(IdempotencyCache idempotencyCache, ObjectMapper objectMapper,
+                                @Value("${order-service.idempotency.wait-timeout}") long waitTimeout,
+                                @Value("${order-service.idempotency.max-body-size}") DataSize maxBodySize) {
+        this.idempotencyCache = idempotencyCache;
+        this.objectMapper = objectMapper;
+        this.waitTimeout = Duration.ofMillis(waitTimeout);
+        this.maxBodySize = Math.toIntExact(maxBodySize.toBytes());
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        ServerHttpRequest request = exchange.getRequest();
+        String key = request.getHeaders().getFirst(IdempotencyCache.IDEMPOTENCY_KEY);
+        MediaType contentType = request.getHeaders().getContentType();
+        if (key == null || !(HttpMethod.POST.equals(request.getMethod()) || HttpMethod.PATCH.equals(request.getMethod()))
+                || MediaType.MULTIPART_FORM_DATA.isCompatibleWith(contentType)) {
+            return chain.filter(exchange);
+        }
+        //NOTE: the body is buffered to fingerprint the request, it is bounded like the bulk requests are
+        return DataBufferUtils.join(request.getBody(), this.maxBodySize)
+                .map(buffer -> {
+                    byte[] body = new byte[buffer.readableByteCount()];
+                    buffer.read(body);
+                    DataBufferUtils.release(buffer);
+                    return body;
+                })
+                .defaultIfEmpty(new byte[0])
+                .onErrorResume(DataBufferLimitException.class, e -> this.reject(exchange.getResponse(), HttpStatus.BAD_REQUEST,
+                        IdempotencyCache.IDEMPOTENCY_KEY + " requests must not have a body larger than " + this.maxBodySize + " bytes")
+                        .then(Mono.empty()))
+                .flatMap(body -> this.execute(exchange, chain, key, body));
+    }
+
+    private Mono<Void> execute(ServerWebExchange exchange, WebFilterChain chain, String key, byte[] body) {
+        ServerHttpRequest request = exchange.getRequest();
+        String fingerprint = IdempotencyCache.fingerprint(request.getMethodValue(), request.getURI().getRawPath(),
+                request.getURI().getRawQuery(), request.getHeaders().getFirst(HttpHeaders.CONTENT_TYPE),
+                request.getHeaders().getFirst(HttpHeaders.ACCEPT), body);
+        IdempotencyCache.Execution execution;
+        try {
+            execution = this.idempotencyCache.begin(key, fingerprint);
+        } catch (UnprocessableEntityException e) {
+            return this.reject(exchange.getResponse(), HttpStatus.UNPROCESSABLE_ENTITY, e.getMessage());
+        }
+        if (!execution.isOwner()) {
+            //NOTE: only a failure of the original request is resumed, a failing replay is not run again.
+            // Cancelling the wait does not cancel the future shared with the other retries
+            return Mono.fromFuture(execution.getResponse())
+                    .timeout(this.waitTimeout)
+                    //NOTE: the original request failed without a response, this one runs it again
+                    .onErrorResume(e -> !(e instanceof TimeoutException),
+                            e -> this.execute(exchange, chain, key, body).then(Mono.empty()))
+                    .onErrorResume(TimeoutException.class, e -> {
+                        exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER, IdempotencyCache.RETRY_AFTER_SECONDS);
+                        return this.reject(exchange.getResponse(), HttpStatus.CONFLICT, IdempotencyCache.STILL_RUNNING)
+                                .then(Mono.empty());
+                    })
+                    .flatMap(recorded -> {
+                        AuditLog.record("idempotent-replay", "path", request.getURI().getRawPath());
+                        return replay(recorded, exchange.getResponse());
+                    });
+        }
+        ServerHttpRequest cachedRequest = new ServerHttpRequestDecorator(request) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+        RecordingResponse recordingResponse = new RecordingResponse(exchange.getResponse(), this.idempotencyCache, execution);
+        //NOTE: subscribed apart from the client, a cancelled request keeps running and completes the execution with the
+        // outcome of its handler. Otherwise a retry would run the handler a second time
+        CompletableFuture<Void> handled = chain.filter(exchange.mutate().request(cachedRequest).response(recordingResponse).build())
+                .doOnSuccess(done -> this.idempotencyCache.complete(execution, recordingResponse.recorded()))
+                .doOnError(e -> this.idempotencyCache.fail(execution, e))
+                .toFuture();
+        return Mono.fromFuture(handled);
+    }
+
+    private Mono<Void> reject(ServerHttpResponse response, HttpStatus status, String message) {
+        log.info("Invalid request. {}", message);
+        response.setStatusCode(status);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromCallable(() -> response.bufferFactory()
+                .wrap(this.objectMapper.writeValueAsBytes(new ErrorResponse(message)))));
+    }
+
+    private static Mono<Void> replay(IdempotencyCache.RecordedResponse recorded, ServerHttpResponse response) {
+        response.setRawStatusCode(recorded.getStatus());
+        recorded.getHeaders().forEach((name, values) -> response.getHeaders().addAll(name, values));
+        response.getHeaders().set(IdempotencyCache.IDEMPOTENT_REPLAYED, "true");
+        response.getHeaders().setContentLength(recorded.getBody().length);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory().wrap(recorded.getBody())));
+    }
+
+    //NOTE: keeps a copy of the body it writes, responses of these requests are single values. The execution is completed
+    // once the body is known, before it is written to a client that may have gone away
+    private static final class RecordingResponse extends ServerHttpResponseDecorator {
+
+        private final IdempotencyCache idempotencyCache;
+        private final IdempotencyCache.Execution execution;
+        private byte[] body = new byte[0];
+
+        private RecordingResponse(ServerHttpResponse delegate, IdempotencyCache idempotencyCache,
+                                  IdempotencyCache.Execution execution) {
+            super(delegate);
+            this.idempotencyCache = idempotencyCache;
+            this.execution = execution;
+        }
+
+        @Override
+        public Mono<Void> writeWith(Publisher<? extends DataBuffer> body) {
+            return DataBufferUtils.join(body)
+                    .flatMap(buffer -> {
+                        byte[] bytes = new byte[buffer.readableByteCount()];
+                        buffer.asByteBuffer().get(bytes);
+                        this.body = bytes;
+                        this.idempotencyCache.complete(this.execution, recorded());
+                        return super.writeWith(Mono.just(buffer));
+                    })
+                    .switchIfEmpty(Mono.defer(() -> super.writeWith(Flux.empty())));
+        }
+
+        private IdempotencyCache.RecordedResponse recorded() {
+            Map<String, List<String>> headers = new LinkedHashMap<>();
+            for (String name : IdempotencyCache.REPLAYED_HEADERS) {
+                List<String> values = getHeaders().get(name);
+                if (values != null && !values.isEmpty()) {
+                    headers.put(name, List.copyOf(values));
+                }
+            }
+            Integer status = getRawStatusCode();
+            return new IdempotencyCache.RecordedResponse(status == null ? 200 : status, headers, body);
+        }
+    }
+}
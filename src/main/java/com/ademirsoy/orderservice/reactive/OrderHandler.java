@@ -0,0 +1,227 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
+import com.ademirsoy.orderservice.controller.AuditLog;
+import com.ademirsoy.orderservice.controller.ETags;
+import com.ademirsoy.orderservice.controller.OrderResponseCache;
+import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.request.AssignOrderRequest;
+import com.ademirsoy.orderservice.model.request.BulkTransitionRequest;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.model.request.ScheduleOrderRequest;
+import com.ademirsoy.orderservice.service.OrderValidator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.http.codec.multipart.Part;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link com.ademirsoy.orderservice.controller.OrderController}.
+ */
+@Component
+@Profile("reactive")
+public class OrderHandler {
+
+    private static final ParameterizedTypeReference<List<Order>> ORDER_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    private final ReactiveOrderFacade orderFacade;
+    private final OrderValidator orderValidator;
+    private final OrderResponseCache orderResponseCache;
+
+    public OrderHandler(ReactiveOrderFacade orderFacade, OrderValidator orderValidator, OrderResponseCache orderResponseCache) {
+        this.orderFacade = orderFacade;
+        this.orderValidator = orderValidator;
+        this.orderResponseCache = orderResponseCache;
+    }
+
+    public Mono<ServerResponse> getAll(ServerRequest request) {
+        OrderFilter filter = RequestParameters.orderFilter(request);
+        int limit = RequestParameters.integer(request, "limit", 100);
+        this.orderValidator.validatePageSize(limit);
+        return ok(request, this.orderFacade.retrievePage(filter, RequestParameters.string(request, "cursor"), limit));
+    }
+
+    public Mono<ServerResponse> export(ServerRequest request) {
+        OrderFilter filter = RequestParameters.orderFilter(request);
+        AuditLog.record("export", "filter", filter);
+        return ServerResponse.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(this.orderFacade.retrieveAll(filter), Order.class);
+    }
+
+    public Mono<ServerResponse> events(ServerRequest request) {
+        OrderFilter filter = RequestParameters.orderFilter(request);
+        AuditLog.record("events", "filter", filter);
+        return this.orderFacade.events(filter).flatMap(events -> ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(BodyInserters.fromServerSentEvents(events.map(event -> ServerSentEvent.builder(event)
+                        .id(String.valueOf(event.getId()))
+                        .event("order")
+                        .build()))));
+    }
+
+    public Mono<ServerResponse> get(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        return this.orderFacade.retrieve(orderId).flatMap(order -> okFromCache(request, order));
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return okWithETag(request, body(request, Order.class).flatMap(order -> {
+            AuditLog.record("create", "photoType", order.getPhotoType(), "date", order.getDate());
+            this.orderValidator.validateCreate(order);
+            return this.orderFacade.create(order);
+        }));
+    }
+
+    public Mono<ServerResponse> createInBulk(ServerRequest request) {
+        return ok(request, request.bodyToMono(ORDER_LIST).defaultIfEmpty(List.of()).flatMap(orders -> {
+            AuditLog.record("bulk-create", "count", orders.size());
+            this.orderValidator.validateBulkSize(orders);
+            return this.orderFacade.createAll(orders);
+        }));
+    }
+
+    public Mono<ServerResponse> transitionInBulk(ServerRequest request) {
+        return ok(request, body(request, BulkTransitionRequest.class).flatMap(transition -> {
+            AuditLog.record("bulk-transition", "transition", transition.getAction(),
+                    "count", transition.getOrderIds() == null ? 0 : transition.getOrderIds().size());
+            this.orderValidator.validateBulkTransition(transition);
+            return this.orderFacade.transitionAll(transition);
+        }));
+    }
+
+    public Mono<ServerResponse> schedule(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        Long expectedVersion = ifMatch(request);
+        return okWithETag(request, body(request, ScheduleOrderRequest.class).flatMap(schedule -> {
+            AuditLog.record("schedule", "order", orderId, "date", schedule.getDate());
+            this.orderValidator.validateSchedule(schedule);
+            return this.orderFacade.schedule(schedule, orderId, expectedVersion);
+        }));
+    }
+
+    public Mono<ServerResponse> assign(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        Long expectedVersion = ifMatch(request);
+        return okWithETag(request, body(request, AssignOrderRequest.class).flatMap(assign -> {
+            AuditLog.record("assign", "order", orderId, "photographer", assign.getPhotographerId());
+            this.orderValidator.validateAssign(assign);
+            return this.orderFacade.assign(assign, orderId, expectedVersion);
+        }));
+    }
+
+    public Mono<ServerResponse> autoAssign(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        AuditLog.record("auto-assign", "order", orderId);
+        return okWithETag(request, this.orderFacade.autoAssign(orderId, ifMatch(request)));
+    }
+
+    public Mono<ServerResponse> complete(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        AuditLog.record("complete", "order", orderId);
+        return okWithETag(request, this.orderFacade.complete(orderId, ifMatch(request)));
+    }
+
+    public Mono<ServerResponse> reject(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        AuditLog.record("reject-photos", "order", orderId);
+        return okWithETag(request, this.orderFacade.reject(orderId, ifMatch(request)));
+    }
+
+    public Mono<ServerResponse> cancel(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        AuditLog.record("cancel", "order", orderId);
+        return okWithETag(request, this.orderFacade.cancel(orderId, ifMatch(request)));
+    }
+
+    public Mono<ServerResponse> upload(ServerRequest request) {
+        Long orderId = RequestParameters.id(request);
+        Long expectedVersion = ifMatch(request);
+        if ("true".equals(RequestParameters.string(request, "async"))) {
+            AuditLog.record("upload-async", "order", orderId);
+            return filePart(request)
+                    .flatMap(file -> this.orderFacade.uploadAsync(orderId, file, expectedVersion))
+                    .flatMap(status -> ServerResponse
+                            .accepted()
+                            .location(URI.create("/orders/" + orderId + "/uploads/" + status.getId()))
+                            .contentType(contentType(request))
+                            .bodyValue(status));
+        }
+        AuditLog.record("upload", "order", orderId);
+        return okWithETag(request, filePart(request).flatMap(file -> this.orderFacade.upload(orderId, file, expectedVersion)));
+    }
+
+    public Mono<ServerResponse> getUploadStatus(ServerRequest request) {
+        return ok(request, this.orderFacade.retrieveUploadStatus(RequestParameters.id(request), request.pathVariable("uploadId")));
+    }
+
+    static <T> Mono<T> body(ServerRequest request, Class<T> type) {
+        return request.bodyToMono(type).switchIfEmpty(Mono.error(() -> new BadRequestException("Request body is missing")));
+    }
+
+    static Mono<ServerResponse> ok(ServerRequest request, Mono<?> body) {
+        return body.flatMap(value -> ServerResponse.ok().contentType(contentType(request)).bodyValue(value));
+    }
+
+    //NOTE: functional endpoints do not negotiate, the response takes the first format the client accepts
+    static MediaType contentType(ServerRequest request) {
+        return BinaryFormatConfig.negotiate(request.headers().accept());
+    }
+
+    private static Mono<ServerResponse> okWithETag(ServerRequest request, Mono<Order> order) {
+        return order.flatMap(value -> ServerResponse.ok()
+                .contentType(contentType(request))
+                .eTag(ETags.of(value))
+                .bodyValue(value));
+    }
+
+    //NOTE: every format and coding has its own ETag, a client holding the one it would get receives 304
+    private Mono<ServerResponse> okFromCache(ServerRequest request, Order order) {
+        MediaType mediaType = contentType(request);
+        OrderResponseCache.Response response = this.orderResponseCache.get(order, mediaType);
+        boolean gzipped = response.getGzippedBody() != null
+                && OrderResponseCache.acceptsGzip(request.headers().firstHeader(HttpHeaders.ACCEPT_ENCODING));
+        String eTag = ETags.of(order, mediaType, gzipped);
+        return request.checkNotModified(eTag)
+                .flatMap(notModified -> ServerResponse.from(notModified)
+                        .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                        .build())
+                .switchIfEmpty(Mono.defer(() -> {
+                    ServerResponse.BodyBuilder builder = ServerResponse.ok()
+                            .contentType(mediaType)
+                            .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                            .eTag(eTag);
+                    if (gzipped) {
+                        return builder.header(HttpHeaders.CONTENT_ENCODING, "gzip").bodyValue(response.getGzippedBody());
+                    }
+                    return builder.bodyValue(response.getBody());
+                }));
+    }
+
+    private static Long ifMatch(ServerRequest request) {
+        return ETags.parseIfMatch(request.headers().firstHeader(HttpHeaders.IF_MATCH));
+    }
+
+    private static Mono<FilePart> filePart(ServerRequest request) {
+        return request.multipartData().flatMap(parts -> {
+            Part part = parts.getFirst("file");
+            if (!(part instanceof FilePart)) {
+                return Mono.error(new BadRequestException("File is empty!"));
+            }
+            return Mono.just((FilePart) part);
+        });
+    }
+}
@@ -0,0 +1,56 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.controller.AuditLog;
+import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.service.OrderValidator;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Reactive counterpart of {@link com.ademirsoy.orderservice.controller.PhotographerController}.
+ */
+@Component
+@Profile("reactive")
+public class PhotographerHandler {
+
+    private static final ParameterizedTypeReference<List<Photographer>> PHOTOGRAPHER_LIST = new ParameterizedTypeReference<>() {
+    };
+
+    private final ReactivePhotographerFacade photographerFacade;
+    private final OrderValidator orderValidator;
+
+    public PhotographerHandler(ReactivePhotographerFacade photographerFacade, OrderValidator orderValidator) {
+        this.photographerFacade = photographerFacade;
+        this.orderValidator = orderValidator;
+    }
+
+    public Mono<ServerResponse> create(ServerRequest request) {
+        return OrderHandler.ok(request, OrderHandler.body(request, Photographer.class).flatMap(photographer -> {
+            AuditLog.record("create-photographer");
+            return this.photographerFacade.create(photographer);
+        }));
+    }
+
+    public Mono<ServerResponse> createInBulk(ServerRequest request) {
+        return OrderHandler.ok(request, request.bodyToMono(PHOTOGRAPHER_LIST).defaultIfEmpty(List.of()).flatMap(photographers -> {
+            AuditLog.record("bulk-create-photographer", "count", photographers.size());
+            return this.photographerFacade.createAll(photographers);
+        }));
+    }
+
+    public Mono<ServerResponse> getAvailability(ServerRequest request) {
+        Long photographerId = RequestParameters.id(request);
+        LocalDate from = RequestParameters.date(request, "from");
+        LocalDate to = RequestParameters.date(request, "to");
+        this.orderValidator.validateAvailabilityRange(from, to);
+        return OrderHandler.ok(request, this.photographerFacade.retrieveAvailability(photographerId, from, to,
+                this.orderValidator.validateTimezone(RequestParameters.string(request, "timezone"))));
+    }
+}
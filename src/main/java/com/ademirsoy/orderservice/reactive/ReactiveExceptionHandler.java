@@ -0,0 +1,84 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.exception.ConflictingOrderException;
+import com.ademirsoy.orderservice.exception.DataAccessException;
+import com.ademirsoy.orderservice.exception.EntityNotFoundException;
+import com.ademirsoy.orderservice.exception.GlobalExceptionHandler.ErrorResponse;
+import com.ademirsoy.orderservice.exception.InvalidOrderStateException;
+import com.ademirsoy.orderservice.exception.PreconditionFailedException;
+import com.ademirsoy.orderservice.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.io.buffer.DataBufferLimitException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.server.HandlerFilterFunction;
+import org.springframework.web.reactive.function.server.HandlerFunction;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+
+/**
+ * Turns exceptions of the reactive routes into the same error responses and metrics as
+ * {@link com.ademirsoy.orderservice.exception.GlobalExceptionHandler} does for the MVC controllers.
+ */
+@Slf4j
+@Component
+@Profile("reactive")
+public class ReactiveExceptionHandler implements HandlerFilterFunction<ServerResponse, ServerResponse> {
+
+    private final MeterRegistry meterRegistry;
+
+    public ReactiveExceptionHandler(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Mono<ServerResponse> filter(ServerRequest request, HandlerFunction<ServerResponse> next) {
+        //NOTE: deferred, so that exceptions thrown while the handler assembles its response are caught too
+        return Mono.defer(() -> next.handle(request)).onErrorResume(this::handle);
+    }
+
+    private Mono<ServerResponse> handle(Throwable ex) {
+        HttpStatus status;
+        String message = ex.getMessage();
+        if (ex instanceof BadRequestException || ex instanceof ConflictingOrderException
+                || ex instanceof InvalidOrderStateException || ex instanceof EntityNotFoundException) {
+            status = HttpStatus.BAD_REQUEST;
+            log.info("Invalid request. {}", message);
+        } else if (ex instanceof PreconditionFailedException) {
+            status = HttpStatus.PRECONDITION_FAILED;
+            log.info("Precondition failed. {}", message);
+        } else if (ex instanceof DataBufferLimitException) {
+            status = HttpStatus.BAD_REQUEST;
+            log.info("Invalid request. {}", message);
+        } else if (ex instanceof ResponseStatusException) {
+            status = ((ResponseStatusException) ex).getStatus();
+            message = ((ResponseStatusException) ex).getReason();
+            log.info("Invalid request. {}", message);
+        } else if (ex instanceof ServiceUnavailableException) {
+            status = HttpStatus.SERVICE_UNAVAILABLE;
+            log.warn("Service unavailable: {}", message);
+        } else if (ex instanceof DataAccessException) {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+            log.info("Unexpected error: {}", message);
+        } else {
+            status = HttpStatus.INTERNAL_SERVER_ERROR;
+            log.error("Internal Server Error, {}", message, ex);
+        }
+        Counter.builder("order-service.errors")
+                .description("Exceptions turned into error responses")
+                .tag("exception", ex.getClass().getSimpleName())
+                .tag("status", String.valueOf(status.value()))
+                .register(this.meterRegistry)
+                .increment();
+        return ServerResponse.status(status)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new ErrorResponse(message));
+    }
+}
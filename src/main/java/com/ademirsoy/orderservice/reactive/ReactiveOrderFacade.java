@@ -0,0 +1,155 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.request.AssignOrderRequest;
+import com.ademirsoy.orderservice.model.request.BulkTransitionRequest;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.model.request.ScheduleOrderRequest;
+import com.ademirsoy.orderservice.model.response.BulkResult;
+import com.ademirsoy.orderservice.model.response.OrderEvent;
+import com.ademirsoy.orderservice.model.response.OrderPage;
+import com.ademirsoy.orderservice.model.response.UploadStatus;
+import com.ademirsoy.orderservice.service.FileUploadService;
+import com.ademirsoy.orderservice.service.OrderEventPublisher;
+import com.ademirsoy.orderservice.service.OrderService;
+import com.ademirsoy.orderservice.service.UploadProcessor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.multipart.FilePart;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Non-blocking view of the order services for the reactive routes. Reads are served from memory and
+ * complete on the calling event loop. Anything that appends to the journal or stores a file may block,
+ * so it runs on the bounded elastic scheduler and an event loop never waits on I/O.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveOrderFacade {
+
+    private final OrderService orderService;
+    private final FileUploadService fileUploadService;
+    private final UploadProcessor uploadProcessor;
+    private final OrderEventPublisher orderEventPublisher;
+
+    public ReactiveOrderFacade(OrderService orderService, FileUploadService fileUploadService,
+                               UploadProcessor uploadProcessor, OrderEventPublisher orderEventPublisher) {
+        this.orderService = orderService;
+        this.fileUploadService = fileUploadService;
+        this.uploadProcessor = uploadProcessor;
+        this.orderEventPublisher = orderEventPublisher;
+    }
+
+    public Mono<OrderPage> retrievePage(OrderFilter filter, String cursor, int limit) {
+        return Mono.fromSupplier(() -> this.orderService.retrievePage(filter, cursor, limit));
+    }
+
+    //NOTE: walks the store on demand, as fast as the client reads
+    public Flux<Order> retrieveAll(OrderFilter filter) {
+        return Flux.fromStream(() -> this.orderService.retrieveAll(filter))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    //NOTE: events wait in a queue of the same capacity until the client asks for them, a client that falls
+    // further behind has its stream ended as on the MVC stack. Subscribing up front reports a refusal as an error response
+    public Mono<Flux<OrderEvent>> events(OrderFilter filter) {
+        return Mono.fromSupplier(() -> {
+            Sinks.Many<OrderEvent> sink = Sinks.many().unicast()
+                    .onBackpressureBuffer(new ArrayBlockingQueue<>(this.orderEventPublisher.getBufferCapacity()));
+            AtomicReference<OrderEventPublisher.Subscription> subscription = new AtomicReference<>();
+            subscription.set(this.orderEventPublisher.subscribe(filter, event -> {
+                if (sink.tryEmitNext(event).isFailure()) {
+                    subscription.get().close();
+                }
+            }, () -> sink.emitComplete((signal, result) -> result == Sinks.EmitResult.FAIL_NON_SERIALIZED)));
+            return sink.asFlux().doFinally(signal -> subscription.get().close());
+        });
+    }
+
+    public Mono<Order> retrieve(Long orderId) {
+        return Mono.fromSupplier(() -> this.orderService.retrieve(orderId));
+    }
+
+    public Mono<Order> create(Order order) {
+        return blocking(() -> this.orderService.create(order));
+    }
+
+    public Mono<BulkResult> createAll(List<Order> orders) {
+        return blocking(() -> this.orderService.createAll(orders));
+    }
+
+    public Mono<BulkResult> transitionAll(BulkTransitionRequest request) {
+        return blocking(() -> this.orderService.transitionAll(request));
+    }
+
+    public Mono<Order> schedule(ScheduleOrderRequest request, Long orderId, Long expectedVersion) {
+        return blocking(() -> this.orderService.schedule(request, orderId, expectedVersion));
+    }
+
+    public Mono<Order> assign(AssignOrderRequest request, Long orderId, Long expectedVersion) {
+        return blocking(() -> this.orderService.assign(request, orderId, expectedVersion));
+    }
+
+    public Mono<Order> autoAssign(Long orderId, Long expectedVersion) {
+        return blocking(() -> this.orderService.autoAssign(orderId, expectedVersion));
+    }
+
+    public Mono<Order> complete(Long orderId, Long expectedVersion) {
+        return blocking(() -> this.orderService.complete(orderId, expectedVersion));
+    }
+
+    public Mono<Order> reject(Long orderId, Long expectedVersion) {
+        return blocking(() -> this.orderService.reject(orderId, expectedVersion));
+    }
+
+    public Mono<Order> cancel(Long orderId, Long expectedVersion) {
+        return blocking(() -> this.orderService.cancel(orderId, expectedVersion));
+    }
+
+    //NOTE: the part is written to the staging directory without blocking, only storing it blocks
+    public Mono<Order> upload(Long orderId, FilePart file, Long expectedVersion) {
+        return this.stage(orderId, file, expectedVersion)
+                .flatMap(stagedFile -> blocking(() -> this.orderService.upload(orderId, file.filename(), stagedFile, expectedVersion))
+                        .doFinally(signal -> UploadProcessor.deleteStagedFile(stagedFile)));
+    }
+
+    public Mono<UploadStatus> uploadAsync(Long orderId, FilePart file, Long expectedVersion) {
+        return this.stage(orderId, file, expectedVersion)
+                .map(stagedFile -> this.uploadProcessor.submit(orderId, file.filename(), stagedFile, expectedVersion));
+    }
+
+    public Mono<UploadStatus> retrieveUploadStatus(Long orderId, String uploadId) {
+        return Mono.fromSupplier(() -> this.uploadProcessor.retrieveStatus(orderId, uploadId));
+    }
+
+    private Mono<Path> stage(Long orderId, FilePart file, Long expectedVersion) {
+        return Mono.defer(() -> {
+            if (file == null) {
+                throw new BadRequestException("File is empty!");
+            }
+            MediaType contentType = file.headers().getContentType();
+            this.fileUploadService.validateContentType(contentType == null ? null : contentType.toString());
+            //NOTE: fails fast on orders that cannot take an upload, before the part is read
+            this.orderService.retrieveUploadable(orderId, expectedVersion);
+            Path stagedFile = this.uploadProcessor.newStagedFile();
+            return file.transferTo(stagedFile)
+                    .doOnError(e -> UploadProcessor.deleteStagedFile(stagedFile))
+                    .thenReturn(stagedFile);
+        });
+    }
+
+    private static <T> Mono<T> blocking(Callable<T> call) {
+        return Mono.fromCallable(call).subscribeOn(Schedulers.boundedElastic());
+    }
+}
@@ -0,0 +1,41 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.model.response.Availability;
+import com.ademirsoy.orderservice.service.PhotographerService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Non-blocking view of the photographer service, see {@link ReactiveOrderFacade}.
+ */
+@Component
+@Profile("reactive")
+public class ReactivePhotographerFacade {
+
+    private final PhotographerService photographerService;
+
+    public ReactivePhotographerFacade(PhotographerService photographerService) {
+        this.photographerService = photographerService;
+    }
+
+    public Mono<Photographer> create(Photographer photographer) {
+        return Mono.fromCallable(() -> this.photographerService.create(photographer))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<List<Photographer>> createAll(List<Photographer> photographers) {
+        return Mono.fromCallable(() -> this.photographerService.createAll(photographers))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    public Mono<Availability> retrieveAvailability(Long photographerId, LocalDate from, LocalDate to, ZoneId zoneId) {
+        return Mono.fromSupplier(() -> this.photographerService.retrieveAvailability(photographerId, from, to, zoneId));
+    }
+}
@@ -0,0 +1,130 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2SmileDecoder;
+import org.springframework.http.codec.json.Jackson2SmileEncoder;
+import org.springframework.http.codec.multipart.DefaultPartHttpMessageReader;
+import org.springframework.http.codec.multipart.MultipartHttpMessageReader;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.accept;
+import static org.springframework.web.reactive.function.server.RequestPredicates.contentType;
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * The order API on WebFlux, enabled with the {@code reactive} profile instead of the MVC controllers.
+ * Serves the same routes on Netty, where a connection only holds a thread while there is work for it.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveRoutes {
+
+    @Bean
+    public RouterFunction<ServerResponse> orderRoutes(OrderHandler handler, ReactiveExceptionHandler exceptionHandler) {
+        return route()
+                .path("/orders", builder -> builder
+                        .GET("", handler::getAll)
+                        .GET("/export", accept(MediaType.APPLICATION_NDJSON), handler::export)
+                        .GET("/events", handler::events)
+                        .GET("/{id}", handler::get)
+                        .POST("", handler::create)
+                        .POST("/bulk", handler::createInBulk)
+                        .PATCH("/bulk", handler::transitionInBulk)
+                        .PATCH("/{id}/schedule", handler::schedule)
+                        .PATCH("/{id}/assign", handler::assign)
+                        .PATCH("/{id}/auto-assign", handler::autoAssign)
+                        .PATCH("/{id}/complete", handler::complete)
+                        .PATCH("/{id}/reject-photos", handler::reject)
+                        .PATCH("/{id}/cancel", handler::cancel)
+                        .POST("/{id}/upload", contentType(MediaType.MULTIPART_FORM_DATA), handler::upload)
+                        .GET("/{id}/uploads/{uploadId}", handler::getUploadStatus))
+                .filter(exceptionHandler)
+                .build();
+    }
+
+    @Bean
+    public RouterFunction<ServerResponse> photographerRoutes(PhotographerHandler handler,
+                                                             ReactiveExceptionHandler exceptionHandler) {
+        return route()
+                .path("/photographers", builder -> builder
+                        .POST("", handler::create)
+                        .POST("/bulk", handler::createInBulk)
+                        .GET("/{id}/availability", handler::getAvailability))
+                .filter(exceptionHandler)
+                .build();
+    }
+
+    //NOTE: Tomcat is on the classpath for the MVC stack and would otherwise be picked
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    //NOTE: the Smile codecs replace the defaults to share the settings of the MVC converters, CBOR has no default codecs.
+    // Each format gets a builder of its own, like the MVC converters, the builder is changed by configuring a mapper
+    @Bean
+    public CodecCustomizer binaryCodecCustomizer(Jackson2ObjectMapperBuilder cborBuilder, Jackson2ObjectMapperBuilder smileBuilder) {
+        ObjectMapper cborMapper = BinaryFormatConfig.binaryMapper(cborBuilder, new CBORFactory());
+        ObjectMapper smileMapper = BinaryFormatConfig.binaryMapper(smileBuilder, new SmileFactory());
+        return configurer -> {
+            configurer.defaultCodecs().jackson2SmileEncoder(new Jackson2SmileEncoder(smileMapper, BinaryFormatConfig.APPLICATION_SMILE));
+            configurer.defaultCodecs().jackson2SmileDecoder(new Jackson2SmileDecoder(smileMapper, BinaryFormatConfig.APPLICATION_SMILE));
+            configurer.customCodecs().register(new SingleValueCborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    //NOTE: parts above the in-memory limit are spooled to disk, like the servlet multipart settings
+    @Bean
+    public CodecCustomizer multipartCodecCustomizer(@Value("${spring.servlet.multipart.max-file-size}") DataSize maxFileSize) {
+        return configurer -> {
+            DefaultPartHttpMessageReader partReader = new DefaultPartHttpMessageReader();
+            partReader.setMaxDiskUsagePerPart(maxFileSize.toBytes());
+            if (configurer instanceof ServerCodecConfigurer) {
+                ((ServerCodecConfigurer) configurer).defaultCodecs().multipartReader(new MultipartHttpMessageReader(partReader));
+            }
+        };
+    }
+
+    //NOTE: the CBOR encoder of Spring 5.3 refuses any publisher, but every CBOR body of these routes is a single value
+    private static final class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        private SingleValueCborEncoder(ObjectMapper mapper) {
+            super(mapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (!(inputStream instanceof Mono)) {
+                return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+            }
+            return Mono.from(inputStream).map(value -> encodeValue(value, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+    }
+}
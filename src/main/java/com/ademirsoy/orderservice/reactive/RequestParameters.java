@@ -0,0 +1,57 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.PhotoType;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import org.springframework.web.reactive.function.server.ServerRequest;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+
+/**
+ * Parses path variables and query parameters of the reactive routes, which have no data binding.
+ * A malformed value is a bad request.
+ */
+final class RequestParameters {
+
+    private RequestParameters() {
+    }
+
+    static Long id(ServerRequest request) {
+        return parse("id", request.pathVariable("id"), Long::valueOf);
+    }
+
+    static String string(ServerRequest request, String name) {
+        return request.queryParam(name).orElse(null);
+    }
+
+    static int integer(ServerRequest request, String name, int defaultValue) {
+        Integer value = parse(name, string(request, name), Integer::valueOf);
+        return value == null ? defaultValue : value;
+    }
+
+    static LocalDate date(ServerRequest request, String name) {
+        return parse(name, string(request, name), LocalDate::parse);
+    }
+
+    static OrderFilter orderFilter(ServerRequest request) {
+        OrderFilter filter = new OrderFilter();
+        filter.setState(parse("state", string(request, "state"), OrderState::valueOf));
+        filter.setPhotographerId(parse("photographerId", string(request, "photographerId"), Long::valueOf));
+        filter.setPhotoType(parse("photoType", string(request, "photoType"), PhotoType::valueOf));
+        return filter;
+    }
+
+    private static <T> T parse(String name, String value, Function<String, T> parser) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return parser.apply(value);
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new BadRequestException("Invalid " + name + ": " + value);
+        }
+    }
+}
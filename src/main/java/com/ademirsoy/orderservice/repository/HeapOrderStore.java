@@ -0,0 +1,39 @@
+package com.ademirsoy.orderservice.repository;
+
+import com.ademirsoy.orderservice.model.Order;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+/**
+ * Keeps the orders themselves on the heap. Reads return the stored instance, nothing is decoded.
+ */
+public class HeapOrderStore implements OrderStore {
+
+    //NOTE: skip list keeps orders sorted by ID and its iterators are weakly consistent,
+    // so findAll can be traversed while other request threads keep writing
+    private final ConcurrentNavigableMap<Long, Order> orderMap = new ConcurrentSkipListMap<>();
+
+    @Override
+    public void put(Order order, byte[] record) {
+        orderMap.put(order.getId(), order);
+    }
+
+    @Override
+    public Order get(Long id) {
+        return orderMap.get(id);
+    }
+
+    @Override
+    public Stream<Long> ids(Long afterId) {
+        return (afterId == null ? orderMap.navigableKeySet() : orderMap.navigableKeySet().tailSet(afterId, false)).stream();
+    }
+
+    @Override
+    public Collection<Order> values() {
+        return Collections.unmodifiableCollection(orderMap.values());
+    }
+}
@@ -0,0 +1,235 @@
+package com.ademirsoy.orderservice.repository;
+
+import com.ademirsoy.orderservice.exception.DataAccessException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.persistence.EntityCodec;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.locks.StampedLock;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+/**
+ * Keeps orders encoded by {@link EntityCodec} in direct {@link ByteBuffer} slabs outside of the heap, so millions
+ * of stored orders are not an object graph the garbage collector has to trace and copy. The heap only holds a
+ * primitive index from order ID to the address of its latest record. Orders are decoded on every read, a returned
+ * order is a copy and its changes are only stored by {@link #put}.
+ * <p>
+ * Records are appended and an update leaves the previous record of the order dead. Once half of a slab is dead,
+ * its live records are moved to the current slab and the slab is reused. Writers are serialized, readers only
+ * take the lock when a write moved a record while they were reading it.
+ */
+public class OffHeapOrderStore implements OrderStore {
+
+    //NOTE: a record is the order ID, the length of the encoded order and the encoded order
+    private static final int HEADER_SIZE = Long.BYTES + Integer.BYTES;
+    private static final int INDEX_CHUNK_BITS = 16;
+    private static final int INDEX_CHUNK_MASK = (1 << INDEX_CHUNK_BITS) - 1;
+
+    private final int slabSize;
+    private final StampedLock lock = new StampedLock();
+    //NOTE: arrays read without the lock are replaced when they grow, never resized in place
+    private volatile ByteBuffer[] slabs = new ByteBuffer[0];
+    //NOTE: record addresses in chunks indexed by ID, order IDs come from a sequence so the chunks fill up
+    private volatile long[][] index = new long[0][];
+    private volatile long maxId;
+    private volatile int count;
+    private int[] usedBytes = new int[0];
+    private int[] liveBytes = new int[0];
+    private final Deque<Integer> freeSlabs = new ArrayDeque<>();
+    private int currentSlab = -1;
+
+    public OffHeapOrderStore(int slabSize) {
+        this.slabSize = slabSize;
+    }
+
+    @Override
+    public void put(Order order, byte[] record) {
+        byte[] encoded = record == null ? EntityCodec.encode(order) : record;
+        if (HEADER_SIZE + encoded.length > slabSize) {
+            throw new DataAccessException("Order " + order.getId() + " does not fit into a slab of " + slabSize + " bytes");
+        }
+        long id = order.getId();
+        long stamp = lock.writeLock();
+        try {
+            long previous = addressOf(id);
+            setAddress(id, append(id, encoded));
+            if (previous == 0) {
+                count++;
+                maxId = Math.max(maxId, id);
+            } else {
+                release(previous);
+            }
+        } finally {
+            lock.unlockWrite(stamp);
+        }
+    }
+
+    @Override
+    public Order get(Long id) {
+        if (id == null) {
+            return null;
+        }
+        byte[] record = null;
+        boolean consistent = false;
+        long stamp = lock.tryOptimisticRead();
+        try {
+            record = read(id);
+            consistent = lock.validate(stamp);
+        } catch (RuntimeException e) {
+            //NOTE: the record moved while it was read, it is read again under the lock
+        }
+        if (!consistent) {
+            stamp = lock.readLock();
+            try {
+                record = read(id);
+            } finally {
+                lock.unlockRead(stamp);
+            }
+        }
+        return record == null ? null : EntityCodec.decodeOrder(record);
+    }
+
+    @Override
+    public Stream<Long> ids(Long afterId) {
+        return LongStream.rangeClosed(afterId == null ? 0 : afterId + 1, maxId)
+                .filter(id -> addressOf(id) != 0)
+                .boxed();
+    }
+
+    @Override
+    public Collection<Order> values() {
+        return new AbstractCollection<>() {
+            @Override
+            public Iterator<Order> iterator() {
+                return ids(null).map(OffHeapOrderStore.this::get).iterator();
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+
+    //NOTE: direct memory held by the slabs, including dead records and free slabs
+    public long getCapacity() {
+        return (long) slabs.length * slabSize;
+    }
+
+    private byte[] read(long id) {
+        long address = addressOf(id);
+        if (address == 0) {
+            return null;
+        }
+        ByteBuffer slab = slabs[slabOf(address)];
+        int position = positionOf(address);
+        int length = slab.getInt(position + Long.BYTES);
+        if (length < 0 || length > slabSize) {
+            throw new IllegalStateException("Invalid record length: " + length);
+        }
+        byte[] record = new byte[length];
+        slab.duplicate().position(position + HEADER_SIZE).get(record);
+        return record;
+    }
+
+    private long append(long id, byte[] record) {
+        int size = HEADER_SIZE + record.length;
+        if (currentSlab < 0 || usedBytes[currentSlab] + size > slabSize) {
+            currentSlab = takeSlab();
+        }
+        ByteBuffer slab = slabs[currentSlab];
+        int position = usedBytes[currentSlab];
+        slab.putLong(position, id);
+        slab.putInt(position + Long.BYTES, record.length);
+        slab.duplicate().position(position + HEADER_SIZE).put(record);
+        usedBytes[currentSlab] += size;
+        liveBytes[currentSlab] += size;
+        return address(currentSlab, position);
+    }
+
+    private void release(long address) {
+        int slab = slabOf(address);
+        liveBytes[slab] -= HEADER_SIZE + slabs[slab].getInt(positionOf(address) + Long.BYTES);
+        if (slab != currentSlab && liveBytes[slab] < usedBytes[slab] / 2) {
+            compact(slab);
+        }
+    }
+
+    //NOTE: a record is live if the index still points at it
+    private void compact(int slab) {
+        ByteBuffer source = slabs[slab];
+        int end = usedBytes[slab];
+        int position = 0;
+        while (position < end) {
+            long id = source.getLong(position);
+            int length = source.getInt(position + Long.BYTES);
+            if (addressOf(id) == address(slab, position)) {
+                byte[] record = new byte[length];
+                source.duplicate().position(position + HEADER_SIZE).get(record);
+                setAddress(id, append(id, record));
+            }
+            position += HEADER_SIZE + length;
+        }
+        usedBytes[slab] = 0;
+        liveBytes[slab] = 0;
+        freeSlabs.push(slab);
+    }
+
+    private int takeSlab() {
+        Integer free = freeSlabs.poll();
+        if (free != null) {
+            return free;
+        }
+        int slab = slabs.length;
+        usedBytes = Arrays.copyOf(usedBytes, slab + 1);
+        liveBytes = Arrays.copyOf(liveBytes, slab + 1);
+        ByteBuffer[] grown = Arrays.copyOf(slabs, slab + 1);
+        grown[slab] = ByteBuffer.allocateDirect(slabSize);
+        slabs = grown;
+        return slab;
+    }
+
+    private long addressOf(long id) {
+        long[][] chunks = index;
+        long chunk = id >>> INDEX_CHUNK_BITS;
+        if (chunk >= chunks.length) {
+            return 0;
+        }
+        return chunks[(int) chunk][(int) (id & INDEX_CHUNK_MASK)];
+    }
+
+    private void setAddress(long id, long address) {
+        int chunk = (int) (id >>> INDEX_CHUNK_BITS);
+        long[][] chunks = index;
+        if (chunk >= chunks.length) {
+            long[][] grown = Arrays.copyOf(chunks, chunk + 1);
+            for (int i = chunks.length; i < grown.length; i++) {
+                grown[i] = new long[INDEX_CHUNK_MASK + 1];
+            }
+            grown[chunk][(int) (id & INDEX_CHUNK_MASK)] = address;
+            index = grown;
+        } else {
+            chunks[chunk][(int) (id & INDEX_CHUNK_MASK)] = address;
+        }
+    }
+
+    //NOTE: slabs are counted from 1 in addresses, so that 0 means no record
+    private static long address(int slab, int position) {
+        return ((long) (slab + 1) << Integer.SIZE) | position;
+    }
+
+    private static int slabOf(long address) {
+        return (int) (address >>> Integer.SIZE) - 1;
+    }
+
+    private static int positionOf(long address) {
+        return (int) address;
+    }
+}
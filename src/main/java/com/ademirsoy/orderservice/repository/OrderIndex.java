@@ -0,0 +1,108 @@
+package com.ademirsoy.orderservice.repository;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.repository.PhotographerSchedule.Slot;
+import lombok.Value;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Secondary indexes of {@link OrderRepository}: order IDs by state, by photographer
+ * and the booked slots of each photographer. ID sets are sorted so that results keep the ID order.
+ */
+class OrderIndex {
+
+    private final Map<OrderState, NavigableSet<Long>> idsByState = new EnumMap<>(OrderState.class);
+    //NOTE: size() of the skip list sets walks all of them
+    private final Map<OrderState, AtomicLong> countsByState = new EnumMap<>(OrderState.class);
+    private final Map<Long, NavigableSet<Long>> idsByPhotographer = new ConcurrentHashMap<>();
+    private final Map<Long, PhotographerSchedule> schedules = new ConcurrentHashMap<>();
+    //NOTE: what each order is currently indexed under, since callers mutate the stored instance before update
+    private final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+
+    OrderIndex() {
+        for (OrderState state : OrderState.values()) {
+            idsByState.put(state, new ConcurrentSkipListSet<>());
+            countsByState.put(state, new AtomicLong());
+        }
+    }
+
+    void reindex(Order order) {
+        this.reindex(order, () -> { });
+    }
+
+    /**
+     * Runs the write of the order and updates the indexes under the lock of its entry, so concurrent writes of
+     * the same order are applied to the store and to the indexes in the same order. Readers are not locked out,
+     * an index may still briefly lag behind the store and its results have to be re-checked against the order.
+     */
+    void reindex(Order order, Runnable write) {
+        entries.compute(order.getId(), (id, previous) -> {
+            write.run();
+            Entry current = new Entry(order.getState(), order.getPhotographerId(), toSlot(order));
+            //NOTE: add before remove, so a concurrent reader never misses the order
+            if (current.getState() != null && idsByState.get(current.getState()).add(id)) {
+                countsByState.get(current.getState()).incrementAndGet();
+            }
+            if (current.getPhotographerId() != null) {
+                idsByPhotographer.computeIfAbsent(current.getPhotographerId(), key -> new ConcurrentSkipListSet<>()).add(id);
+            }
+            if (current.getSlot() != null) {
+                schedules.computeIfAbsent(current.getPhotographerId(), key -> new PhotographerSchedule()).add(current.getSlot());
+            }
+            if (previous != null) {
+                if (previous.getState() != null && previous.getState() != current.getState()
+                        && idsByState.get(previous.getState()).remove(id)) {
+                    countsByState.get(previous.getState()).decrementAndGet();
+                }
+                if (previous.getPhotographerId() != null
+                        && !previous.getPhotographerId().equals(current.getPhotographerId())) {
+                    idsByPhotographer.get(previous.getPhotographerId()).remove(id);
+                }
+                if (previous.getSlot() != null && !previous.getSlot().equals(current.getSlot())) {
+                    schedules.get(previous.getSlot().getPhotographerId()).remove(previous.getSlot());
+                }
+            }
+            return current;
+        });
+    }
+
+    NavigableSet<Long> findIdsByState(OrderState state) {
+        return Collections.unmodifiableNavigableSet(idsByState.get(state));
+    }
+
+    long countByState(OrderState state) {
+        return countsByState.get(state).get();
+    }
+
+    NavigableSet<Long> findIdsByPhotographer(Long photographerId) {
+        NavigableSet<Long> ids = idsByPhotographer.get(photographerId);
+        return ids == null ? Collections.emptyNavigableSet() : Collections.unmodifiableNavigableSet(ids);
+    }
+
+    PhotographerSchedule findSchedule(Long photographerId) {
+        return schedules.get(photographerId);
+    }
+
+    private static Slot toSlot(Order order) {
+        if (!OrderState.ASSIGNED.equals(order.getState()) || order.getPhotographerId() == null
+                || order.getDateTime() == null) {
+            return null;
+        }
+        return new Slot(order.getId(), order.getPhotographerId(), order.getDateTime(), order.getEndDateTime());
+    }
+
+    @Value
+    private static class Entry {
+        OrderState state;
+        Long photographerId;
+        Slot slot;
+    }
+}
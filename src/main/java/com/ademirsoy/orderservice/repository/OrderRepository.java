@@ -2,50 +2,178 @@ package com.ademirsoy.orderservice.repository;
 
 import com.ademirsoy.orderservice.exception.DataAccessException;
 import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.persistence.EntityCodec;
+import com.ademirsoy.orderservice.persistence.Journal;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
-import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderRepository {
 
-    private final Map<Long, Order> orderMap = new HashMap<>();
+    private final OrderStore orderStore;
+    private final AtomicLong idSequence = new AtomicLong();
+    private final OrderIndex orderIndex = new OrderIndex();
+    private final Journal journal;
+
+    public OrderRepository(Journal journal) {
+        this(journal, new HeapOrderStore());
+    }
+
+    @Autowired
+    public OrderRepository(Journal journal, OrderStore orderStore) {
+        this.journal = journal;
+        this.orderStore = orderStore;
+    }
 
     public Order create(Order order) {
-        Long id = orderMap.size() + 1L;
+        Long id = idSequence.incrementAndGet();
         order.setId(id);
         order.setCreatedDate(Instant.now());
-        orderMap.put(id, order);
+        order.setVersion(1L);
+        this.store(order);
         return order;
     }
 
+    //NOTE: allocates the IDs of the whole batch at once, so a batch gets a consecutive ID range
+    public List<Order> createAll(List<Order> orders) {
+        long firstId = idSequence.getAndAdd(orders.size()) + 1;
+        Instant now = Instant.now();
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            order.setId(firstId + i);
+            order.setCreatedDate(now);
+            order.setVersion(1L);
+            this.store(order);
+        }
+        return orders;
+    }
+
     public Order update(Order order) {
         if (order.getId() == null) {
             throw new DataAccessException("Order should have an ID");
         }
         order.setModifiedDate(Instant.now());
-        orderMap.put(order.getId(), order);
+        order.setVersion(order.getVersion() == null ? 1L : order.getVersion() + 1);
+        this.store(order);
         return order;
     }
 
+    //NOTE: loads a persisted order as is, without journaling it again
+    public void restore(Order order) {
+        idSequence.accumulateAndGet(order.getId(), Math::max);
+        orderStore.put(order, null);
+        orderIndex.reindex(order);
+    }
+
     public Order findById(Long id) {
-        return orderMap.get(id);
+        return orderStore.get(id);
     }
 
     public Collection<Order> findAll() {
-        return orderMap.values();
+        return orderStore.values();
+    }
+
+    public List<Order> findAll(OrderFilter filter, Long afterId, int limit) {
+        return this.resolve(this.findCandidateIds(filter, afterId), filter)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public Stream<Order> stream(OrderFilter filter) {
+        return this.resolve(this.findCandidateIds(filter, null), filter);
+    }
+
+    public long countByState(OrderState state) {
+        return orderIndex.countByState(state);
+    }
+
+    public int countBookedSlots(Long photographerId) {
+        PhotographerSchedule schedule = orderIndex.findSchedule(photographerId);
+        return schedule == null ? 0 : schedule.size();
     }
 
     public List<Order> findByPhotographer(Long photographerId) {
-        return this.orderMap
-                .values()
+        return orderIndex.findIdsByPhotographer(photographerId)
                 .stream()
+                .map(orderStore::get)
                 .filter(order -> photographerId.equals(order.getPhotographerId()))
                 .collect(Collectors.toList());
     }
+
+    public List<Order> findConflictingOrders(Long photographerId, Instant start, Instant end) {
+        PhotographerSchedule schedule = orderIndex.findSchedule(photographerId);
+        if (schedule == null) {
+            return Collections.emptyList();
+        }
+        return schedule.findOverlapping(start, end)
+                .stream()
+                .map(orderStore::get)
+                .collect(Collectors.toList());
+    }
+
+    public List<PhotographerSchedule.Slot> findBookedSlots(Long photographerId, Instant start, Instant end) {
+        PhotographerSchedule schedule = orderIndex.findSchedule(photographerId);
+        return schedule == null ? Collections.emptyList() : schedule.findSlots(start, end);
+    }
+
+    /**
+     * Picks the photographer with the fewest assigned orders among those free between start and end.
+     * Photographer IDs must come in ascending order, ties then go to the lowest ID.
+     * Returns null if none of them is free.
+     */
+    public Long findLeastLoadedAvailablePhotographer(Iterable<Long> photographerIds, Instant start, Instant end) {
+        Long selected = null;
+        int selectedLoad = Integer.MAX_VALUE;
+        for (Long photographerId : photographerIds) {
+            PhotographerSchedule schedule = orderIndex.findSchedule(photographerId);
+            int load = schedule == null ? 0 : schedule.size();
+            //NOTE: the load is checked first, it is much cheaper than the overlap lookup
+            if (load < selectedLoad && (schedule == null || schedule.isFree(start, end))) {
+                selected = photographerId;
+                selectedLoad = load;
+                if (load == 0) {
+                    break;
+                }
+            }
+        }
+        return selected;
+    }
+
+    //NOTE: encodes the order once, for the store and the journal
+    private void store(Order order) {
+        byte[] record = EntityCodec.encode(order);
+        orderIndex.reindex(order, () -> orderStore.put(order, record));
+        //NOTE: outside of the index lock, appending blocks while the journal writer is behind
+        journal.append(record);
+    }
+
+    private Stream<Long> findCandidateIds(OrderFilter filter, Long afterId) {
+        NavigableSet<Long> candidateIds;
+        if (filter.getPhotographerId() != null) {
+            candidateIds = orderIndex.findIdsByPhotographer(filter.getPhotographerId());
+        } else if (filter.getState() != null) {
+            candidateIds = orderIndex.findIdsByState(filter.getState());
+        } else {
+            return orderStore.ids(afterId);
+        }
+        return (afterId == null ? candidateIds : candidateIds.tailSet(afterId, false)).stream();
+    }
+
+    private Stream<Order> resolve(Stream<Long> candidateIds, OrderFilter filter) {
+        //NOTE: the index may briefly lag behind an in-flight update, so candidates are re-checked
+        return candidateIds
+                .map(orderStore::get)
+                .filter(filter::matches);
+    }
 }
@@ -0,0 +1,26 @@
+package com.ademirsoy.orderservice.repository;
+
+import com.ademirsoy.orderservice.model.Order;
+
+import java.util.Collection;
+import java.util.stream.Stream;
+
+/**
+ * Primary storage of {@link OrderRepository}, orders by ID. Iteration is in ID order and weakly consistent,
+ * it can run while other threads keep writing.
+ */
+public interface OrderStore {
+
+    /**
+     * Stores the order under its ID. The record is the order encoded by
+     * {@link com.ademirsoy.orderservice.persistence.EntityCodec}, or null if it has not been encoded yet.
+     */
+    void put(Order order, byte[] record);
+
+    Order get(Long id);
+
+    //NOTE: IDs greater than afterId in ascending order, all of them when afterId is null
+    Stream<Long> ids(Long afterId);
+
+    Collection<Order> values();
+}
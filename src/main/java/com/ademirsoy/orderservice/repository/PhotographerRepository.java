@@ -2,22 +2,35 @@ package com.ademirsoy.orderservice.repository;
 
 import com.ademirsoy.orderservice.exception.DataAccessException;
 import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.persistence.EntityCodec;
+import com.ademirsoy.orderservice.persistence.Journal;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Service
 public class PhotographerRepository {
 
-    private final Map<Long, Photographer> photographerMap = new HashMap<>();
+    private final ConcurrentNavigableMap<Long, Photographer> photographerMap = new ConcurrentSkipListMap<>();
+    private final AtomicLong idSequence = new AtomicLong();
+    private final Journal journal;
+
+    public PhotographerRepository(Journal journal) {
+        this.journal = journal;
+    }
 
     public Photographer create(Photographer photographer) {
-        Long id = photographerMap.size() + 1L;
+        Long id = idSequence.incrementAndGet();
         photographer.setId(id);
         photographer.setCreatedDate(Instant.now());
+        photographer.setVersion(1L);
         photographerMap.put(id, photographer);
+        journal.append(EntityCodec.encode(photographer));
         return photographer;
     }
 
@@ -26,11 +39,23 @@ public class PhotographerRepository {
             throw new DataAccessException("Order should have an ID");
         }
         photographer.setModifiedDate(Instant.now());
+        photographer.setVersion(photographer.getVersion() == null ? 1L : photographer.getVersion() + 1);
         photographerMap.put(photographer.getId(), photographer);
+        journal.append(EntityCodec.encode(photographer));
         return photographer;
     }
 
+    //NOTE: loads a persisted photographer as is, without journaling it again
+    public void restore(Photographer photographer) {
+        idSequence.accumulateAndGet(photographer.getId(), Math::max);
+        photographerMap.put(photographer.getId(), photographer);
+    }
+
     public Photographer findById(Long id) {
         return photographerMap.get(id);
     }
+
+    public Collection<Photographer> findAll() {
+        return Collections.unmodifiableCollection(photographerMap.values());
+    }
 }
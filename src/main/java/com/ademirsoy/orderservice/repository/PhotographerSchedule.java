@@ -0,0 +1,106 @@
+package com.ademirsoy.orderservice.repository;
+
+import lombok.Value;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Booked time slots of a single photographer, sorted by start instant.
+ * Overlap lookups only walk the slots that start before the end of the requested interval
+ * and stop as soon as no longer slot could reach into it.
+ */
+public class PhotographerSchedule {
+
+    private final NavigableSet<Slot> slots = new ConcurrentSkipListSet<>();
+    //NOTE: only grows, so it is always a safe upper bound for the lookback window
+    private final AtomicLong maxDurationMillis = new AtomicLong();
+    //NOTE: size() of the skip list walks all of it
+    private final AtomicInteger slotCount = new AtomicInteger();
+
+    void add(Slot slot) {
+        maxDurationMillis.accumulateAndGet(Duration.between(slot.getStart(), slot.getEnd()).toMillis(), Math::max);
+        if (slots.add(slot)) {
+            slotCount.incrementAndGet();
+        }
+    }
+
+    void remove(Slot slot) {
+        if (slots.remove(slot)) {
+            slotCount.decrementAndGet();
+        }
+    }
+
+    public List<Long> findOverlapping(Instant start, Instant end) {
+        Instant lookbackLimit = start.minusMillis(maxDurationMillis.get());
+        List<Long> orderIds = new ArrayList<>();
+        for (Slot slot : slots.headSet(Slot.lowerBound(end), false).descendingSet()) {
+            if (!slot.getStart().isAfter(lookbackLimit)) {
+                break;
+            }
+            if (slot.getEnd().isAfter(start)) {
+                orderIds.add(slot.getOrderId());
+            }
+        }
+        return orderIds;
+    }
+
+    //NOTE: sorted by start, like the schedule itself
+    public List<Slot> findSlots(Instant start, Instant end) {
+        Instant lookbackLimit = start.minusMillis(maxDurationMillis.get());
+        List<Slot> overlapping = new ArrayList<>();
+        for (Slot slot : slots.subSet(Slot.lowerBound(lookbackLimit), false, Slot.lowerBound(end), false)) {
+            if (slot.getEnd().isAfter(start)) {
+                overlapping.add(slot);
+            }
+        }
+        return overlapping;
+    }
+
+    public boolean isFree(Instant start, Instant end) {
+        Instant lookbackLimit = start.minusMillis(maxDurationMillis.get());
+        for (Slot slot : slots.headSet(Slot.lowerBound(end), false).descendingSet()) {
+            if (!slot.getStart().isAfter(lookbackLimit)) {
+                return true;
+            }
+            if (slot.getEnd().isAfter(start)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public int size() {
+        return slotCount.get();
+    }
+
+    @Value
+    public static class Slot implements Comparable<Slot> {
+
+        private static final Comparator<Slot> ORDERING = Comparator
+                .comparing(Slot::getStart)
+                .thenComparing(Slot::getEnd)
+                .thenComparing(Slot::getOrderId);
+
+        Long orderId;
+        Long photographerId;
+        Instant start;
+        Instant end;
+
+        static Slot lowerBound(Instant start) {
+            return new Slot(Long.MIN_VALUE, null, start, start);
+        }
+
+        @Override
+        public int compareTo(Slot other) {
+            return ORDERING.compare(this, other);
+        }
+    }
+}
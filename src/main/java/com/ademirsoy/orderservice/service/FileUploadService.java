@@ -1,20 +1,76 @@
 package com.ademirsoy.orderservice.service;
 
 import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.exception.DataAccessException;
+import com.ademirsoy.orderservice.model.ArchiveManifest;
+import com.ademirsoy.orderservice.storage.PhotoStorage;
+import com.ademirsoy.orderservice.storage.ZipStreamVerifier;
+import com.ademirsoy.orderservice.storage.ZipVerifyingChannel;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.ZipException;
+
 @Service
 public class FileUploadService {
 
-    public String uploadFile(MultipartFile file) {
+    //NOTE: guards against archives that inflate far beyond their upload size
+    private static final long MAX_UNCOMPRESSED_SIZE = 2L * 1024 * 1024 * 1024;
+
+    private final PhotoStorage photoStorage;
+
+    public FileUploadService(PhotoStorage photoStorage) {
+        this.photoStorage = photoStorage;
+    }
+
+    public ArchiveManifest uploadFile(Long orderId, MultipartFile file) {
+        this.validateFile(file);
+        //NOTE: parts are spooled to disk by the container, so this is usually a file channel
+        try (InputStream in = file.getInputStream();
+             ReadableByteChannel source = in instanceof FileInputStream
+                     ? ((FileInputStream) in).getChannel() : Channels.newChannel(in)) {
+            return this.store(orderId, file.getOriginalFilename(), source);
+        } catch (IOException e) {
+            throw new DataAccessException("File could not be stored: " + e.getMessage());
+        }
+    }
+
+    public ArchiveManifest uploadFile(Long orderId, String fileName, Path stagedFile) {
+        try (FileChannel source = FileChannel.open(stagedFile, StandardOpenOption.READ)) {
+            return this.store(orderId, fileName, source);
+        } catch (IOException e) {
+            throw new DataAccessException("File could not be stored: " + e.getMessage());
+        }
+    }
+
+    public void validateFile(MultipartFile file) {
         if (file == null) {
             throw new BadRequestException("File is empty!");
-        } else if (!"application/zip".equals(file.getContentType())) {
+        }
+        this.validateContentType(file.getContentType());
+    }
+
+    public void validateContentType(String contentType) {
+        if (!"application/zip".equals(contentType)) {
             throw new BadRequestException("Only zip files are allowed");
         }
-        //Upload file to a storage service
+    }
 
-        return file.getOriginalFilename();
+    //NOTE: the archive is verified while it is stored, a failure aborts the store before it completes
+    private ArchiveManifest store(Long orderId, String fileName, ReadableByteChannel source) throws IOException {
+        try (ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_UNCOMPRESSED_SIZE)) {
+            String key = photoStorage.store(orderId, fileName, new ZipVerifyingChannel(source, verifier));
+            return ArchiveManifest.of(key, verifier.getEntries());
+        } catch (ZipException e) {
+            throw new BadRequestException("Invalid zip file: " + e.getMessage());
+        }
     }
 }
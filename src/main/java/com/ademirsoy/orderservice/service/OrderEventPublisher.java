@@ -0,0 +1,158 @@
+package com.ademirsoy.orderservice.service;
+
+import com.ademirsoy.orderservice.exception.ServiceUnavailableException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.model.response.OrderEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PreDestroy;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * Fans order changes out to the subscribers of the event stream. Every subscriber has a bounded buffer and
+ * publishing only offers to it, so a writer never waits for a subscriber. A buffer is drained by its own task,
+ * a slow subscriber only delays itself. When a buffer overflows the subscriber is closed, it has missed events
+ * and has to reconnect and read the orders again.
+ */
+@Slf4j
+@Service
+public class OrderEventPublisher {
+
+    private final int bufferCapacity;
+    private final int maxSubscribers;
+    private final AtomicLong sequence = new AtomicLong();
+    private final Set<Subscription> subscriptions = ConcurrentHashMap.newKeySet();
+    //NOTE: a slot is reserved before subscribing, so concurrent subscribers cannot go over the limit together
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService dispatcher;
+
+    public OrderEventPublisher(@Value("${order-service.events.buffer-capacity}") int bufferCapacity,
+                               @Value("${order-service.events.max-subscribers}") int maxSubscribers) {
+        this.bufferCapacity = bufferCapacity;
+        this.maxSubscribers = maxSubscribers;
+        AtomicInteger threadCount = new AtomicInteger();
+        //NOTE: threads only live while a subscriber has events to send, there is at most one per subscriber
+        this.dispatcher = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "order-events-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    //NOTE: onClose is called once, whichever side ends the subscription
+    public Subscription subscribe(OrderFilter filter, Consumer<OrderEvent> listener, Runnable onClose) {
+        if (this.subscriberCount.incrementAndGet() > this.maxSubscribers) {
+            this.subscriberCount.decrementAndGet();
+            throw new ServiceUnavailableException("Too many event subscribers, please retry later");
+        }
+        Subscription subscription = new Subscription(filter, listener, onClose);
+        this.subscriptions.add(subscription);
+        return subscription;
+    }
+
+    public void publish(Order order, OrderState previousState) {
+        if (this.subscriptions.isEmpty()) {
+            return;
+        }
+        OrderEvent event = null;
+        for (Subscription subscription : this.subscriptions) {
+            if (subscription.filter.matches(order)) {
+                if (event == null) {
+                    event = OrderEvent.of(this.sequence.incrementAndGet(), order, previousState);
+                }
+                subscription.offer(event);
+            }
+        }
+    }
+
+    public int getBufferCapacity() {
+        return this.bufferCapacity;
+    }
+
+    public int countSubscribers() {
+        return this.subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        this.subscriptions.forEach(Subscription::close);
+        this.dispatcher.shutdownNow();
+    }
+
+    public final class Subscription {
+
+        private final OrderFilter filter;
+        private final Consumer<OrderEvent> listener;
+        private final Runnable onClose;
+        private final BlockingQueue<OrderEvent> buffer;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        private Subscription(OrderFilter filter, Consumer<OrderEvent> listener, Runnable onClose) {
+            this.filter = filter == null ? new OrderFilter() : filter;
+            this.listener = listener;
+            this.onClose = onClose;
+            this.buffer = new ArrayBlockingQueue<>(bufferCapacity);
+        }
+
+        public void close() {
+            if (this.closed.compareAndSet(false, true)) {
+                subscriptions.remove(this);
+                subscriberCount.decrementAndGet();
+                this.buffer.clear();
+                this.onClose.run();
+            }
+        }
+
+        private void offer(OrderEvent event) {
+            if (!this.buffer.offer(event)) {
+                log.info("Event subscriber closed, it fell {} events behind", bufferCapacity);
+                this.close();
+                return;
+            }
+            this.scheduleDrain();
+        }
+
+        private void scheduleDrain() {
+            if (this.draining.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    this.close();
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                OrderEvent event;
+                while (!this.closed.get() && (event = this.buffer.poll()) != null) {
+                    this.listener.accept(event);
+                }
+            } catch (RuntimeException e) {
+                log.debug("Event subscriber closed, sending failed: {}", e.getMessage());
+                this.close();
+            } finally {
+                this.draining.set(false);
+            }
+            //NOTE: an event offered after the last poll but before the flag was cleared would be left behind
+            if (!this.closed.get() && !this.buffer.isEmpty()) {
+                this.scheduleDrain();
+            }
+        }
+    }
+}
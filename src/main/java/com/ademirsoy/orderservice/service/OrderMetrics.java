@@ -0,0 +1,69 @@
+package com.ademirsoy.orderservice.service;
+
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Order lifecycle metrics. Meters are registered once up front, so recording is a plain
+ * update of an existing meter instead of a registry lookup on every request.
+ */
+@Component
+public class OrderMetrics {
+
+    public enum Transition {
+        CREATE, SCHEDULE, ASSIGN, AUTO_ASSIGN, UPLOAD, COMPLETE, REJECT, CANCEL
+    }
+
+    private final Map<Transition, Timer> succeededTimers = new EnumMap<>(Transition.class);
+    private final Map<Transition, Timer> failedTimers = new EnumMap<>(Transition.class);
+    private final Timer conflictCheckTimer;
+    private final DistributionSummary conflictCheckCandidates;
+
+    public OrderMetrics(MeterRegistry meterRegistry, OrderRepository orderRepository) {
+        for (Transition transition : Transition.values()) {
+            succeededTimers.put(transition, transitionTimer(meterRegistry, transition, "succeeded"));
+            failedTimers.put(transition, transitionTimer(meterRegistry, transition, "failed"));
+        }
+        for (OrderState state : OrderState.values()) {
+            Gauge.builder("order-service.orders", orderRepository, repository -> repository.countByState(state))
+                    .description("Orders currently in each state")
+                    .tag("state", state.name())
+                    .register(meterRegistry);
+        }
+        this.conflictCheckTimer = Timer.builder("order-service.conflict-check")
+                .description("Time to check a photographer's schedule for conflicting orders")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.conflictCheckCandidates = DistributionSummary.builder("order-service.conflict-check.candidates")
+                .description("Booked slots of the photographer a conflict check runs against")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    public void recordTransition(Transition transition, long elapsedNanos, boolean succeeded) {
+        (succeeded ? succeededTimers : failedTimers).get(transition).record(elapsedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void recordConflictCheck(long elapsedNanos, int candidates) {
+        conflictCheckTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        conflictCheckCandidates.record(candidates);
+    }
+
+    private static Timer transitionTimer(MeterRegistry meterRegistry, Transition transition, String outcome) {
+        return Timer.builder("order-service.order.transition")
+                .description("Order lifecycle transitions, the count is the number of transitions")
+                .tag("transition", transition.name().toLowerCase(Locale.ROOT))
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+}
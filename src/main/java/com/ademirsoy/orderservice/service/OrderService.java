@@ -1,47 +1,126 @@
 package com.ademirsoy.orderservice.service;
 
+import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.exception.ConflictingOrderException;
 import com.ademirsoy.orderservice.exception.EntityNotFoundException;
 import com.ademirsoy.orderservice.exception.InvalidOrderStateException;
+import com.ademirsoy.orderservice.exception.PreconditionFailedException;
+import com.ademirsoy.orderservice.model.ArchiveManifest;
 import com.ademirsoy.orderservice.model.Order;
 import com.ademirsoy.orderservice.model.OrderState;
 import com.ademirsoy.orderservice.model.Photographer;
 import com.ademirsoy.orderservice.model.request.AssignOrderRequest;
+import com.ademirsoy.orderservice.model.request.BulkTransitionRequest;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
 import com.ademirsoy.orderservice.model.request.ScheduleOrderRequest;
+import com.ademirsoy.orderservice.model.response.BulkItemResult;
+import com.ademirsoy.orderservice.model.response.BulkResult;
+import com.ademirsoy.orderservice.model.response.OrderPage;
 import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.service.OrderMetrics.Transition;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class OrderService {
 
+    private static final int ORDER_LOCK_STRIPES = 1024;
+    private static final int PHOTOGRAPHER_LOCK_STRIPES = 256;
+
     private final OrderRepository orderRepository;
     private final PhotographerService photographerService;
     private final OrderValidator orderValidator;
     private final FileUploadService fileUploadService;
+    private final OrderMetrics orderMetrics;
+    private final OrderEventPublisher orderEventPublisher;
+    private final StripedLocks orderLocks = new StripedLocks(ORDER_LOCK_STRIPES);
+    private final StripedLocks photographerLocks = new StripedLocks(PHOTOGRAPHER_LOCK_STRIPES);
 
     public OrderService(OrderRepository orderRepository, PhotographerService photographerService,
-                        OrderValidator orderValidator, FileUploadService fileUploadService) {
+                        OrderValidator orderValidator, FileUploadService fileUploadService, OrderMetrics orderMetrics,
+                        OrderEventPublisher orderEventPublisher) {
         this.orderRepository = orderRepository;
         this.photographerService = photographerService;
         this.orderValidator = orderValidator;
         this.fileUploadService = fileUploadService;
+        this.orderMetrics = orderMetrics;
+        this.orderEventPublisher = orderEventPublisher;
     }
 
     public Order create(Order order) {
-        if (order.getDateTime() == null) {
-            order.setState(OrderState.UNSCHEDULED);
-        } else {
-            orderValidator.validateTime(order.getTime());
-            order.setState(OrderState.PENDING);
+        return this.measure(Transition.CREATE, () -> {
+            this.initializeState(order);
+            Order created = this.orderRepository.create(order);
+            this.orderEventPublisher.publish(created, null);
+            return created;
+        });
+    }
+
+    //NOTE: invalid orders are reported per item, the valid ones are inserted as one batch
+    public BulkResult createAll(List<Order> orders) {
+        BulkItemResult[] results = new BulkItemResult[orders.size()];
+        List<Order> validOrders = new ArrayList<>(orders.size());
+        for (int i = 0; i < orders.size(); i++) {
+            Order order = orders.get(i);
+            try {
+                if (order == null) {
+                    throw new BadRequestException("Order is empty!");
+                }
+                orderValidator.validateCreate(order);
+                this.initializeState(order);
+                validOrders.add(order);
+            } catch (BadRequestException e) {
+                results[i] = BulkItemResult.failed(i, null, e.getMessage());
+            }
+        }
+        this.orderRepository.createAll(validOrders);
+        validOrders.forEach(order -> this.orderEventPublisher.publish(order, null));
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                results[i] = BulkItemResult.succeeded(i, orders.get(i).getId());
+            }
+        }
+        return BulkResult.of(Arrays.asList(results));
+    }
+
+    public OrderPage retrievePage(OrderFilter filter, String cursor, int limit) {
+        Long afterId = cursor == null ? null : decodeCursor(cursor);
+        //NOTE: one extra order tells whether there is a next page
+        List<Order> orders = this.orderRepository.findAll(filter, afterId, limit + 1);
+        if (orders.size() <= limit) {
+            return new OrderPage(orders, null);
         }
-        return this.orderRepository.create(order);
+        List<Order> page = orders.subList(0, limit);
+        return new OrderPage(page, encodeCursor(page.get(limit - 1).getId()));
+    }
+
+    public Stream<Order> retrieveAll(OrderFilter filter) {
+        return this.orderRepository.stream(filter);
+    }
+
+    static String encodeCursor(Long lastId) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(lastId).getBytes(StandardCharsets.US_ASCII));
     }
 
-    public Collection<Order> retrieveAll() {
-        return this.orderRepository.findAll();
+    static Long decodeCursor(String cursor) {
+        try {
+            return Long.valueOf(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.US_ASCII));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException("Invalid cursor: " + cursor);
+        }
     }
 
     public Order retrieve(Long id) {
@@ -53,65 +132,254 @@ public class OrderService {
     }
 
     public Order schedule(ScheduleOrderRequest request, Long orderId) {
-        Order order = this.retrieve(orderId);
-        if (!OrderState.UNSCHEDULED.equals(order.getState())) {
-            throw new InvalidOrderStateException("Only UNSCHEDULED orders can be scheduled! Current order state: " + order.getState());
-        }
-        orderValidator.validateTime(request.getTime());
-        order.setState(OrderState.PENDING);
-        order.setDate(request.getDate());
-        order.setTime(request.getTime());
-        order.setTimezone(request.getTimezone());
-        return this.orderRepository.update(order);
+        return this.schedule(request, orderId, null);
+    }
+
+    public Order schedule(ScheduleOrderRequest request, Long orderId, Long expectedVersion) {
+        return this.measure(Transition.SCHEDULE, () -> this.modify(orderId, expectedVersion, order -> {
+            if (!OrderState.UNSCHEDULED.equals(order.getState())) {
+                throw new InvalidOrderStateException("Only UNSCHEDULED orders can be scheduled! Current order state: " + order.getState());
+            }
+            orderValidator.validateTime(request.getTime());
+            order.setState(OrderState.PENDING);
+            order.setDate(request.getDate());
+            order.setTime(request.getTime());
+            order.setTimezone(request.getTimezone());
+            return this.orderRepository.update(order);
+        }));
     }
 
     public Order assign(AssignOrderRequest request, Long orderId) {
-        Order order = this.retrieve(orderId);
-        if (!OrderState.PENDING.equals(order.getState())) {
-            throw new InvalidOrderStateException("Only PENDING orders can be assigned! Current order state: " + order.getState());
-        }
-        Photographer photographer = this.photographerService.retrieve(request.getPhotographerId());
-        this.orderValidator.checkConflictingOrders(photographer.getId(), order);
-        order.setPhotographerId(request.getPhotographerId());
-        order.setState(OrderState.ASSIGNED);
-        return this.orderRepository.update(order);
+        return this.assign(request, orderId, null);
+    }
+
+    public Order assign(AssignOrderRequest request, Long orderId, Long expectedVersion) {
+        return this.measure(Transition.ASSIGN, () -> this.modify(orderId, expectedVersion, order -> {
+            if (!OrderState.PENDING.equals(order.getState())) {
+                throw new InvalidOrderStateException("Only PENDING orders can be assigned! Current order state: " + order.getState());
+            }
+            Photographer photographer = this.photographerService.retrieve(request.getPhotographerId());
+            return this.book(photographer.getId(), order);
+        }));
+    }
+
+    public Order autoAssign(Long orderId) {
+        return this.autoAssign(orderId, null);
+    }
+
+    public Order autoAssign(Long orderId, Long expectedVersion) {
+        return this.measure(Transition.AUTO_ASSIGN, () -> this.modify(orderId, expectedVersion, order -> {
+            if (!OrderState.PENDING.equals(order.getState())) {
+                throw new InvalidOrderStateException("Only PENDING orders can be assigned! Current order state: " + order.getState());
+            }
+            //NOTE: photographers are kept sorted by ID, which makes the choice deterministic
+            List<Long> photographerIds = this.photographerService.retrieveAll().stream().map(Photographer::getId).collect(Collectors.toList());
+            //NOTE: the chosen photographer may get booked before its lock is taken, then another one is chosen.
+            // Every retry follows a successful concurrent assignment, so this ends at the latest when no one is free
+            while (true) {
+                Long photographerId = this.orderRepository
+                        .findLeastLoadedAvailablePhotographer(photographerIds, order.getDateTime(), order.getEndDateTime());
+                if (photographerId == null) {
+                    throw new ConflictingOrderException("No photographer is available at the requested date and time!");
+                }
+                try {
+                    return this.book(photographerId, order);
+                } catch (ConflictingOrderException e) {
+                    //NOTE: booked by a concurrent assignment, the next choice sees it
+                }
+            }
+        }));
+    }
+
+    //NOTE: checks and books the photographer's schedule under its lock, so concurrent assignments of overlapping orders
+    // cannot both pass the check. Always taken inside the order lock, never the other way around
+    private Order book(Long photographerId, Order order) {
+        return this.photographerLocks.withLock(photographerId, () -> {
+            this.orderValidator.checkConflictingOrders(photographerId, order);
+            order.setPhotographerId(photographerId);
+            order.setState(OrderState.ASSIGNED);
+            return this.orderRepository.update(order);
+        });
     }
 
     public Order upload(Long orderId, MultipartFile file) {
+        return this.upload(orderId, file, null);
+    }
+
+    public Order upload(Long orderId, MultipartFile file, Long expectedVersion) {
+        return this.measure(Transition.UPLOAD, () -> {
+            this.retrieveUploadable(orderId, expectedVersion);
+            return this.completeUpload(orderId, expectedVersion, fileUploadService.uploadFile(orderId, file));
+        });
+    }
+
+    public Order upload(Long orderId, String fileName, Path stagedFile, Long expectedVersion) {
+        return this.measure(Transition.UPLOAD, () -> {
+            this.retrieveUploadable(orderId, expectedVersion);
+            return this.completeUpload(orderId, expectedVersion, fileUploadService.uploadFile(orderId, fileName, stagedFile));
+        });
+    }
+
+    //NOTE: the version is checked again once the file is stored, this only saves storing it for nothing
+    public Order retrieveUploadable(Long orderId, Long expectedVersion) {
         Order order = this.retrieve(orderId);
+        checkVersion(order, expectedVersion);
+        this.checkUploadable(order);
+        return order;
+    }
+
+    private void checkUploadable(Order order) {
         if (!OrderState.ASSIGNED.equals(order.getState())) {
             throw new InvalidOrderStateException("Upload is possible Only for ASSIGNED orders! Current order state: " + order.getState());
         }
-        String fileName = fileUploadService.uploadFile(file);
-        if (order.getFiles() == null) {
-            order.setFiles(new ArrayList<>());
+    }
+
+    private <T> T measure(Transition transition, Supplier<T> action) {
+        long started = System.nanoTime();
+        boolean succeeded = false;
+        try {
+            T result = action.get();
+            succeeded = true;
+            return result;
+        } finally {
+            this.orderMetrics.recordTransition(transition, System.nanoTime() - started, succeeded);
         }
-        order.getFiles().add(fileName);
-        order.setState(OrderState.UPLOADED);
-        return this.orderRepository.update(order);
     }
 
-    public Order complete(Long orderId) {
-        Order order = this.retrieve(orderId);
-        if (!OrderState.UPLOADED.equals(order.getState())) {
-            throw new InvalidOrderStateException("Only UPLOADED orders can be completed! Current order state: " + order.getState());
+    private void initializeState(Order order) {
+        if (order.getDateTime() == null) {
+            order.setState(OrderState.UNSCHEDULED);
+        } else {
+            orderValidator.validateTime(order.getTime());
+            order.setState(OrderState.PENDING);
         }
-        order.setState(OrderState.COMPLETED);
-        return this.orderRepository.update(order);
     }
 
-    public Order reject(Long orderId) {
-        Order order = this.retrieve(orderId);
-        if (!OrderState.UPLOADED.equals(order.getState())) {
-            throw new InvalidOrderStateException("Only UPLOADED orders can be rejected! Current order state: " + order.getState());
+    //NOTE: the order may have changed while the file was stored, so its state is checked again
+    private Order completeUpload(Long orderId, Long expectedVersion, ArchiveManifest manifest) {
+        return this.modify(orderId, expectedVersion, order -> {
+            this.checkUploadable(order);
+            if (order.getFiles() == null) {
+                order.setFiles(new ArrayList<>());
+            }
+            if (order.getManifests() == null) {
+                order.setManifests(new ArrayList<>());
+            }
+            order.getFiles().add(manifest.getFile());
+            order.getManifests().add(manifest);
+            order.setState(OrderState.UPLOADED);
+            return this.orderRepository.update(order);
+        });
+    }
+
+    //NOTE: checks and changes an order under its lock, so concurrent changes of an order cannot overwrite each other.
+    // Events are published under the lock as well, subscribers see the changes of an order in order
+    private Order modify(Long orderId, Long expectedVersion, UnaryOperator<Order> change) {
+        return this.orderLocks.withLock(orderId, () -> {
+            Order order = this.retrieve(orderId);
+            checkVersion(order, expectedVersion);
+            OrderState previousState = order.getState();
+            Order changed = change.apply(order);
+            this.orderEventPublisher.publish(changed, previousState);
+            return changed;
+        });
+    }
+
+    private static void checkVersion(Order order, Long expectedVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(order.getVersion())) {
+            throw new PreconditionFailedException("Order has been modified! Current version: " + order.getVersion());
         }
-        order.setState(OrderState.ASSIGNED);
-        return this.orderRepository.update(order);
+    }
+
+    public Order complete(Long orderId) {
+        return this.complete(orderId, null);
+    }
+
+    public Order complete(Long orderId, Long expectedVersion) {
+        return this.measure(Transition.COMPLETE, () -> this.modify(orderId, expectedVersion, order -> {
+            if (!OrderState.UPLOADED.equals(order.getState())) {
+                throw new InvalidOrderStateException("Only UPLOADED orders can be completed! Current order state: " + order.getState());
+            }
+            order.setState(OrderState.COMPLETED);
+            return this.orderRepository.update(order);
+        }));
+    }
+
+    public Order reject(Long orderId) {
+        return this.reject(orderId, null);
+    }
+
+    public Order reject(Long orderId, Long expectedVersion) {
+        return this.measure(Transition.REJECT, () -> this.modify(orderId, expectedVersion, order -> {
+            if (!OrderState.UPLOADED.equals(order.getState())) {
+                throw new InvalidOrderStateException("Only UPLOADED orders can be rejected! Current order state: " + order.getState());
+            }
+            order.setState(OrderState.ASSIGNED);
+            return this.orderRepository.update(order);
+        }));
     }
 
     public Order cancel(Long orderId) {
-        Order order = this.retrieve(orderId);
-        order.setState(OrderState.CANCELLED);
-        return this.orderRepository.update(order);
+        return this.cancel(orderId, null);
+    }
+
+    public Order cancel(Long orderId, Long expectedVersion) {
+        return this.measure(Transition.CANCEL, () -> this.modify(orderId, expectedVersion, order -> {
+            order.setState(OrderState.CANCELLED);
+            return this.orderRepository.update(order);
+        }));
+    }
+
+    public BulkResult transitionAll(BulkTransitionRequest request) {
+        List<Long> orderIds = request.getOrderIds();
+        if (BulkTransitionRequest.Action.ASSIGN.equals(request.getAction())) {
+            //NOTE: fails the whole request up front rather than every item with the same reason
+            this.photographerService.retrieve(request.getPhotographerId());
+        }
+        Set<Long> uniqueIds = new HashSet<>();
+        String[] rejections = new String[orderIds.size()];
+        for (int i = 0; i < orderIds.size(); i++) {
+            Long orderId = orderIds.get(i);
+            if (orderId == null) {
+                rejections[i] = "Order ID is empty!";
+            } else if (!uniqueIds.add(orderId)) {
+                rejections[i] = "Duplicate order ID in request: " + orderId;
+            }
+        }
+        //NOTE: runs on the request thread. The transitions block on order and photographer locks and on the journal,
+        // run in parallel they would hold up the common pool. Assignments also have to see the ones made before them
+        List<BulkItemResult> results = new ArrayList<>(orderIds.size());
+        for (int i = 0; i < orderIds.size(); i++) {
+            results.add(rejections[i] != null
+                    ? BulkItemResult.failed(i, orderIds.get(i), rejections[i])
+                    : this.transition(i, orderIds.get(i), request));
+        }
+        return BulkResult.of(results);
+    }
+
+    private BulkItemResult transition(int index, Long orderId, BulkTransitionRequest request) {
+        try {
+            switch (request.getAction()) {
+                case ASSIGN:
+                    AssignOrderRequest assignRequest = new AssignOrderRequest();
+                    assignRequest.setPhotographerId(request.getPhotographerId());
+                    this.assign(assignRequest, orderId);
+                    break;
+                case COMPLETE:
+                    this.complete(orderId);
+                    break;
+                case REJECT_PHOTOS:
+                    this.reject(orderId);
+                    break;
+                case CANCEL:
+                    this.cancel(orderId);
+                    break;
+                default:
+                    throw new BadRequestException("Unsupported action: " + request.getAction());
+            }
+            return BulkItemResult.succeeded(index, orderId);
+        } catch (BadRequestException | ConflictingOrderException | InvalidOrderStateException | EntityNotFoundException e) {
+            return BulkItemResult.failed(index, orderId, e.getMessage());
+        }
     }
 }
@@ -4,27 +4,36 @@ import com.ademirsoy.orderservice.exception.BadRequestException;
 import com.ademirsoy.orderservice.exception.ConflictingOrderException;
 import com.ademirsoy.orderservice.model.Contact;
 import com.ademirsoy.orderservice.model.Order;
-import com.ademirsoy.orderservice.model.OrderState;
 import com.ademirsoy.orderservice.model.request.AssignOrderRequest;
+import com.ademirsoy.orderservice.model.request.BulkTransitionRequest;
 import com.ademirsoy.orderservice.model.request.ScheduleOrderRequest;
 import com.ademirsoy.orderservice.repository.OrderRepository;
 import org.springframework.stereotype.Service;
 
+import java.time.DateTimeException;
+import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
 import java.util.regex.Pattern;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 @Service
 public class OrderValidator {
 
     public static final Pattern EMAIL_PATTERN = Pattern.compile("^(.+)@(.+)$");
+    public static final int MAX_PAGE_SIZE = 1000;
+    public static final int MAX_BULK_SIZE = 10000;
+    public static final int MAX_AVAILABILITY_DAYS = 31;
+    public static final LocalTime BUSINESS_HOURS_START = LocalTime.parse("08:00:00");
+    public static final LocalTime BUSINESS_HOURS_END = LocalTime.parse("20:00:00");
     private final OrderRepository orderRepository;
+    private final OrderMetrics orderMetrics;
 
-    public OrderValidator(OrderRepository orderRepository) {
+    public OrderValidator(OrderRepository orderRepository, OrderMetrics orderMetrics) {
         this.orderRepository = orderRepository;
+        this.orderMetrics = orderMetrics;
     }
 
     public void validateCreate(Order order) {
@@ -68,29 +77,61 @@ public class OrderValidator {
         }
     }
 
+    public void validatePageSize(int limit) {
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            throw new BadRequestException("limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+    }
+
+    public void validateBulkSize(List<?> items) {
+        if (items == null || items.isEmpty() || items.size() > MAX_BULK_SIZE) {
+            throw new BadRequestException("Bulk request must contain between 1 and " + MAX_BULK_SIZE + " items");
+        }
+    }
+
+    public void validateBulkTransition(BulkTransitionRequest request) {
+        if (request.getAction() == null) {
+            throw new BadRequestException("action field is mandatory!");
+        }
+        this.validateBulkSize(request.getOrderIds());
+        if (BulkTransitionRequest.Action.ASSIGN.equals(request.getAction()) && request.getPhotographerId() == null) {
+            throw new BadRequestException("photographerId field is mandatory!");
+        }
+    }
+
+    public void validateAvailabilityRange(LocalDate from, LocalDate to) {
+        if (from == null || to == null) {
+            throw new BadRequestException("from and to fields are mandatory!");
+        }
+        if (to.isBefore(from) || ChronoUnit.DAYS.between(from, to) >= MAX_AVAILABILITY_DAYS) {
+            throw new BadRequestException("to must be on or after from and within " + MAX_AVAILABILITY_DAYS + " days");
+        }
+    }
+
+    //NOTE: the system default timezone when none is given, like orders without a timezone
+    public ZoneId validateTimezone(String timezone) {
+        if (timezone == null) {
+            return ZoneId.systemDefault();
+        }
+        try {
+            return ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            throw new BadRequestException("Invalid timezone: " + timezone);
+        }
+    }
+
     public void checkConflictingOrders(Long photographerId, Order order) {
-        List<Order> existingOrders = this.orderRepository.findByPhotographer(photographerId);
-        List<Order> conflictingOrders = existingOrders
-                .stream()
-                .filter(o -> OrderState.ASSIGNED.equals(o.getState()))
-                .filter(o -> {
-                    if (o.getDateTime().isBefore(order.getDateTime())
-                            && o.getDateTime().plus(order.getDurationInHours(), ChronoUnit.HOURS).isAfter(order.getDateTime())) {
-                        return true;
-                    } else if (order.getDateTime().isBefore(o.getDateTime())
-                            && order.getDateTime().plus(order.getDurationInHours(), ChronoUnit.HOURS).isAfter(o.getDateTime())) {
-                        return true;
-                    }
-                    return false;
-                })
-                .collect(Collectors.toList());
+        long started = System.nanoTime();
+        List<Order> conflictingOrders = this.orderRepository
+                .findConflictingOrders(photographerId, order.getDateTime(), order.getEndDateTime());
+        this.orderMetrics.recordConflictCheck(System.nanoTime() - started, this.orderRepository.countBookedSlots(photographerId));
         if (conflictingOrders.size() > 0) {
             throw new ConflictingOrderException("This photographer is not available at the requested date and time!");
         }
     }
 
     public void validateTime(LocalTime time) {
-        if (time.isBefore(LocalTime.parse("08:00:00")) || time.isAfter(LocalTime.parse("20:00:00"))) {
+        if (time.isBefore(BUSINESS_HOURS_START) || time.isAfter(BUSINESS_HOURS_END)) {
             throw new BadRequestException("Order must be within business hours: (8:00-20:00)");
         }
     }
@@ -2,20 +2,29 @@ package com.ademirsoy.orderservice.service;
 
 import com.ademirsoy.orderservice.exception.EntityNotFoundException;
 import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.model.response.Availability;
+import com.ademirsoy.orderservice.model.response.TimeSlot;
+import com.ademirsoy.orderservice.repository.OrderRepository;
 import com.ademirsoy.orderservice.repository.PhotographerRepository;
+import com.ademirsoy.orderservice.repository.PhotographerSchedule;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 
 @Service
 public class PhotographerService {
 
     private final PhotographerRepository repository;
+    private final OrderRepository orderRepository;
 
-    public PhotographerService(PhotographerRepository repository) {
+    public PhotographerService(PhotographerRepository repository, OrderRepository orderRepository) {
         this.repository = repository;
+        this.orderRepository = orderRepository;
     }
 
     public Photographer create(Photographer photographer) {
@@ -31,6 +40,10 @@ public class PhotographerService {
         return createdPhotographers;
     }
 
+    public Collection<Photographer> retrieveAll() {
+        return repository.findAll();
+    }
+
     public Photographer retrieve(Long id) {
         Photographer photographer = repository.findById(id);
         if (photographer == null) {
@@ -38,4 +51,57 @@ public class PhotographerService {
         }
         return photographer;
     }
+
+    /**
+     * Free intervals of a photographer within business hours of each day from {@code from} to {@code to}.
+     * The booked slots overlapping the range come sorted by start from the photographer's schedule,
+     * they are merged and then subtracted from the business hours in a single sweep.
+     */
+    public Availability retrieveAvailability(Long id, LocalDate from, LocalDate to, ZoneId zoneId) {
+        Photographer photographer = this.retrieve(id);
+        Instant rangeStart = from.atTime(OrderValidator.BUSINESS_HOURS_START).atZone(zoneId).toInstant();
+        Instant rangeEnd = to.atTime(OrderValidator.BUSINESS_HOURS_END).atZone(zoneId).toInstant();
+        List<Instant[]> booked = merge(orderRepository.findBookedSlots(photographer.getId(), rangeStart, rangeEnd));
+
+        List<TimeSlot> freeSlots = new ArrayList<>();
+        int next = 0;
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            Instant windowStart = day.atTime(OrderValidator.BUSINESS_HOURS_START).atZone(zoneId).toInstant();
+            Instant windowEnd = day.atTime(OrderValidator.BUSINESS_HOURS_END).atZone(zoneId).toInstant();
+            //NOTE: windows and merged intervals are both ascending, so passed intervals are never looked at again
+            while (next < booked.size() && !booked.get(next)[1].isAfter(windowStart)) {
+                next++;
+            }
+            Instant cursor = windowStart;
+            for (int i = next; i < booked.size() && booked.get(i)[0].isBefore(windowEnd) && cursor.isBefore(windowEnd); i++) {
+                if (booked.get(i)[0].isAfter(cursor)) {
+                    freeSlots.add(toTimeSlot(cursor, booked.get(i)[0], zoneId));
+                }
+                cursor = booked.get(i)[1].isAfter(cursor) ? booked.get(i)[1] : cursor;
+            }
+            if (cursor.isBefore(windowEnd)) {
+                freeSlots.add(toTimeSlot(cursor, windowEnd, zoneId));
+            }
+        }
+        return new Availability(photographer.getId(), zoneId.getId(), freeSlots);
+    }
+
+    private static List<Instant[]> merge(List<PhotographerSchedule.Slot> slots) {
+        List<Instant[]> merged = new ArrayList<>();
+        for (PhotographerSchedule.Slot slot : slots) {
+            Instant[] last = merged.isEmpty() ? null : merged.get(merged.size() - 1);
+            if (last != null && !slot.getStart().isAfter(last[1])) {
+                if (slot.getEnd().isAfter(last[1])) {
+                    last[1] = slot.getEnd();
+                }
+            } else {
+                merged.add(new Instant[]{slot.getStart(), slot.getEnd()});
+            }
+        }
+        return merged;
+    }
+
+    private static TimeSlot toTimeSlot(Instant start, Instant end, ZoneId zoneId) {
+        return new TimeSlot(start.atZone(zoneId).toOffsetDateTime(), end.atZone(zoneId).toOffsetDateTime());
+    }
 }
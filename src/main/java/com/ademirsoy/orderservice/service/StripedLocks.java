@@ -0,0 +1,39 @@
+package com.ademirsoy.orderservice.service;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * A fixed set of locks shared by all IDs, an ID always maps to the same lock.
+ * Serializes work on the same ID without a lock per entity, unrelated IDs rarely share a lock.
+ */
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    //NOTE: rounded up to a power of two, so picking a stripe is a mask instead of a modulo
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            this.locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+    }
+
+    public <T> T withLock(Long id, Supplier<T> action) {
+        ReentrantLock lock = this.locks[this.stripe(id)];
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private int stripe(Long id) {
+        long hash = id == null ? 0 : id * 0x9E3779B97F4A7C15L;
+        return (int) (hash >>> 32) & mask;
+    }
+}
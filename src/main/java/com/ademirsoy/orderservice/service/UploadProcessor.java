@@ -0,0 +1,192 @@
+package com.ademirsoy.orderservice.service;
+
+import com.ademirsoy.orderservice.exception.DataAccessException;
+import com.ademirsoy.orderservice.exception.EntityNotFoundException;
+import com.ademirsoy.orderservice.exception.ServiceUnavailableException;
+import com.ademirsoy.orderservice.model.UploadState;
+import com.ademirsoy.orderservice.model.response.UploadStatus;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Processes uploads in the background, so a request thread only has to stage the uploaded part.
+ * Staged uploads wait in a bounded queue for a dedicated pool that stores and verifies them and
+ * moves the order to UPLOADED. When the queue is full new uploads are refused instead of piling up.
+ */
+@Slf4j
+@Service
+public class UploadProcessor {
+
+    private final OrderService orderService;
+    private final FileUploadService fileUploadService;
+    private final Path stagingDirectory;
+    private final Duration statusRetention;
+    private final BlockingQueue<Runnable> queue;
+    private final ThreadPoolExecutor executor;
+    private final Map<String, UploadStatus> statuses = new ConcurrentHashMap<>();
+    private final Timer waitTimer;
+    private final Timer completedTimer;
+    private final Timer failedTimer;
+
+    public UploadProcessor(OrderService orderService, FileUploadService fileUploadService, MeterRegistry meterRegistry,
+                           @Value("${order-service.upload.staging-directory}") String stagingDirectory,
+                           @Value("${order-service.upload.threads}") int threads,
+                           @Value("${order-service.upload.queue-capacity}") int queueCapacity,
+                           @Value("${order-service.upload.status-retention}") long statusRetention) throws IOException {
+        this.orderService = orderService;
+        this.fileUploadService = fileUploadService;
+        this.stagingDirectory = Files.createDirectories(Paths.get(stagingDirectory));
+        //NOTE: uploads still queued at shutdown are lost, their clients see them as not found
+        try (Stream<Path> leftovers = Files.list(this.stagingDirectory)) {
+            leftovers.forEach(UploadProcessor::deleteStagedFile);
+        }
+        this.statusRetention = Duration.ofMillis(statusRetention);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS, this.queue, runnable -> {
+            Thread thread = new Thread(runnable, "upload-processor-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        Gauge.builder("order-service.upload.queue", this.queue, BlockingQueue::size)
+                .description("Uploads waiting to be processed")
+                .register(meterRegistry);
+        Gauge.builder("order-service.upload.active", this.executor, ThreadPoolExecutor::getActiveCount)
+                .description("Uploads being processed")
+                .register(meterRegistry);
+        this.waitTimer = Timer.builder("order-service.upload.wait")
+                .description("Time uploads spend in the queue")
+                .register(meterRegistry);
+        this.completedTimer = Timer.builder("order-service.upload.processing")
+                .description("Time to store and verify an upload")
+                .tag("outcome", "completed")
+                .register(meterRegistry);
+        this.failedTimer = Timer.builder("order-service.upload.processing")
+                .description("Time to store and verify an upload")
+                .tag("outcome", "failed")
+                .register(meterRegistry);
+    }
+
+    public UploadStatus submit(Long orderId, MultipartFile file) {
+        return this.submit(orderId, file, null);
+    }
+
+    public UploadStatus submit(Long orderId, MultipartFile file, Long expectedVersion) {
+        this.fileUploadService.validateFile(file);
+        //NOTE: fails fast on orders that cannot take an upload, the processor checks again
+        this.orderService.retrieveUploadable(orderId, expectedVersion);
+
+        //NOTE: the container deletes the part when the request ends, moving it out is usually a rename
+        Path stagedFile = this.newStagedFile();
+        try {
+            file.transferTo(stagedFile);
+        } catch (IOException e) {
+            throw new DataAccessException("File could not be staged: " + e.getMessage());
+        }
+        return this.submit(orderId, file.getOriginalFilename(), stagedFile, expectedVersion);
+    }
+
+    //NOTE: takes over the staged file, it is deleted once processed or when the queue refuses it
+    public UploadStatus submit(Long orderId, String fileName, Path stagedFile, Long expectedVersion) {
+        UploadStatus status = new UploadStatus(UUID.randomUUID().toString(), orderId, fileName);
+        this.statuses.put(status.getId(), status);
+        try {
+            this.executor.execute(() -> this.process(status, stagedFile, expectedVersion));
+        } catch (RejectedExecutionException e) {
+            this.statuses.remove(status.getId());
+            deleteStagedFile(stagedFile);
+            throw new ServiceUnavailableException("Upload queue is full, please retry later");
+        }
+        log.info("Upload {} for order {} queued, queue size: {}", status.getId(), orderId, this.queue.size());
+        return status;
+    }
+
+    public Path newStagedFile() {
+        return this.stagingDirectory.resolve(UUID.randomUUID() + ".zip");
+    }
+
+    public UploadStatus retrieveStatus(Long orderId, String uploadId) {
+        UploadStatus status = this.statuses.get(uploadId);
+        if (status == null || !status.getOrderId().equals(orderId)) {
+            throw new EntityNotFoundException("Upload not found! uploadId: " + uploadId);
+        }
+        return status;
+    }
+
+    @Scheduled(fixedDelay = 60000)
+    public void evictFinished() {
+        Instant threshold = Instant.now().minus(this.statusRetention);
+        this.statuses.values().removeIf(status -> status.getCompletedDate() != null
+                && status.getCompletedDate().isBefore(threshold));
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        this.executor.shutdown();
+        if (!this.executor.awaitTermination(30, TimeUnit.SECONDS)) {
+            log.warn("Upload processor stopped with {} uploads still queued", this.queue.size());
+        }
+    }
+
+    private void process(UploadStatus status, Path stagedFile, Long expectedVersion) {
+        long started = System.nanoTime();
+        this.waitTimer.record(Duration.between(status.getAcceptedDate(), Instant.now()));
+        status.setState(UploadState.PROCESSING);
+        RuntimeException failure = null;
+        try {
+            this.orderService.upload(status.getOrderId(), status.getFileName(), stagedFile, expectedVersion);
+        } catch (RuntimeException e) {
+            failure = e;
+        } finally {
+            deleteStagedFile(stagedFile);
+        }
+        //NOTE: published only once the staged file is gone, a finished upload leaves nothing behind.
+        // The completed date is written last, a client that sees it also sees the final state and error
+        long elapsed = System.nanoTime() - started;
+        if (failure == null) {
+            status.setState(UploadState.COMPLETED);
+            status.setCompletedDate(Instant.now());
+            this.completedTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Upload {} for order {} completed", status.getId(), status.getOrderId());
+        } else {
+            status.setError(failure.getMessage());
+            status.setState(UploadState.FAILED);
+            status.setCompletedDate(Instant.now());
+            this.failedTimer.record(elapsed, TimeUnit.NANOSECONDS);
+            log.info("Upload {} for order {} failed: {}", status.getId(), status.getOrderId(), failure.getMessage());
+        }
+    }
+
+    public static void deleteStagedFile(Path stagedFile) {
+        try {
+            Files.deleteIfExists(stagedFile);
+        } catch (IOException e) {
+            log.warn("Staged upload {} could not be deleted: {}", stagedFile, e.getMessage());
+        }
+    }
+}
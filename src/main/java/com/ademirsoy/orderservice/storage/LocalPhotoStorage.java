@@ -0,0 +1,64 @@
+package com.ademirsoy.orderservice.storage;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.UUID;
+
+import static java.nio.file.StandardOpenOption.CREATE_NEW;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+/**
+ * {@link PhotoStorage} on the local file system, files are stored as {@code <orderId>/<uuid>-<fileName>}.
+ * Content coming from a file is copied with {@link FileChannel#transferTo} so the bytes never enter
+ * the JVM, any other channel is copied in chunks with {@link FileChannel#transferFrom}.
+ */
+public class LocalPhotoStorage implements PhotoStorage {
+
+    private static final long CHUNK_SIZE = 8 * 1024 * 1024;
+
+    private final Path directory;
+
+    public LocalPhotoStorage(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+    }
+
+    @Override
+    public String store(Long orderId, String fileName, ReadableByteChannel content) throws IOException {
+        String key = orderId + "/" + UUID.randomUUID() + "-" + sanitize(fileName);
+        Path target = directory.resolve(key);
+        Path temporary = target.resolveSibling(target.getFileName() + ".part");
+        Files.createDirectories(target.getParent());
+        try (FileChannel out = FileChannel.open(temporary, CREATE_NEW, WRITE)) {
+            if (content instanceof FileChannel) {
+                FileChannel in = (FileChannel) content;
+                long size = in.size();
+                for (long position = in.position(); position < size; ) {
+                    position += in.transferTo(position, size - position, out);
+                }
+            } else {
+                for (long position = 0, transferred; (transferred = out.transferFrom(content, position, CHUNK_SIZE)) > 0; ) {
+                    position += transferred;
+                }
+            }
+            out.force(false);
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary);
+            throw e;
+        }
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        return key;
+    }
+
+    private static String sanitize(String fileName) {
+        if (fileName == null || fileName.isEmpty()) {
+            return "upload.zip";
+        }
+        //NOTE: keeps only the last path segment of client supplied names
+        String name = fileName.substring(Math.max(fileName.lastIndexOf('/'), fileName.lastIndexOf('\\')) + 1);
+        return name.replaceAll("[^A-Za-z0-9._-]", "_");
+    }
+}
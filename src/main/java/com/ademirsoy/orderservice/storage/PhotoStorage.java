@@ -0,0 +1,17 @@
+package com.ademirsoy.orderservice.storage;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Storage backend for uploaded photo archives.
+ */
+public interface PhotoStorage {
+
+    /**
+     * Streams the content to the storage without holding it in memory.
+     *
+     * @return the key the content is stored under
+     */
+    String store(Long orderId, String fileName, ReadableByteChannel content) throws IOException;
+}
@@ -0,0 +1,342 @@
+package com.ademirsoy.orderservice.storage;
+
+import com.ademirsoy.orderservice.model.ArchiveEntry;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Verifies a ZIP archive in a single pass while its bytes stream past, without buffering the archive.
+ * Checks the local file headers, inflates every entry to check its CRC and sizes, and checks that
+ * the central directory and its end record describe exactly the entries that were read.
+ * <p>
+ * Encrypted entries, ZIP64 archives and stored entries with a data descriptor are rejected.
+ */
+public class ZipStreamVerifier implements AutoCloseable {
+
+    private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+    private static final int DATA_DESCRIPTOR_SIGNATURE = 0x08074b50;
+    private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+    private static final int END_OF_CENTRAL_DIRECTORY_SIGNATURE = 0x06054b50;
+
+    private static final int STORED = 0;
+    private static final int DEFLATED = 8;
+    private static final int ENCRYPTED_FLAG = 1;
+    private static final int DATA_DESCRIPTOR_FLAG = 8;
+    private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+    private enum State {
+        SIGNATURE, LOCAL_HEADER, LOCAL_NAME, ENTRY_DATA, DESCRIPTOR, DESCRIPTOR_BODY,
+        CENTRAL_HEADER, CENTRAL_NAME, END_HEADER, END_COMMENT, DONE
+    }
+
+    private final long maxUncompressedSize;
+    private final Inflater inflater = new Inflater(true);
+    private final CRC32 crc = new CRC32();
+    private final ByteBuffer inflated = ByteBuffer.allocate(64 * 1024);
+    private final List<ArchiveEntry> entries = new ArrayList<>();
+    private final List<Long> entryOffsets = new ArrayList<>();
+
+    private ByteBuffer pending = ByteBuffer.allocate(64).order(ByteOrder.LITTLE_ENDIAN);
+    private State state;
+    private long offset;
+    private long signatureOffset;
+    private long centralDirectoryOffset = -1;
+    private int centralEntries;
+    private long totalUncompressedSize;
+
+    //NOTE: the local entry being read
+    private long entryOffset;
+    private int entryFlags;
+    private int entryMethod;
+    private long entryCrc;
+    private long entryCompressedSize;
+    private long entryUncompressedSize;
+    private String entryName;
+    private long storedBytesRead;
+    private long uncompressedBytesRead;
+    private int nameLength;
+
+    public ZipStreamVerifier(long maxUncompressedSize) {
+        this.maxUncompressedSize = maxUncompressedSize;
+        this.expect(State.SIGNATURE, Integer.BYTES);
+    }
+
+    public void update(ByteBuffer input) throws ZipException {
+        while (true) {
+            if (state == State.ENTRY_DATA) {
+                if (!input.hasRemaining()) {
+                    return;
+                }
+                this.readEntryData(input);
+            } else if (state == State.DONE) {
+                if (input.hasRemaining()) {
+                    throw new ZipException("Unexpected data after the end of the archive");
+                }
+                return;
+            } else if (!pending.hasRemaining()) {
+                pending.flip();
+                this.onHeader();
+            } else if (!input.hasRemaining()) {
+                return;
+            } else {
+                int length = Math.min(pending.remaining(), input.remaining());
+                ByteBuffer chunk = input.slice();
+                chunk.limit(length);
+                pending.put(chunk);
+                input.position(input.position() + length);
+                offset += length;
+            }
+        }
+    }
+
+    public void finish() throws ZipException {
+        if (state != State.DONE) {
+            throw new ZipException(offset == 0 ? "Archive is empty" : "Archive is truncated");
+        }
+        if (entries.isEmpty()) {
+            throw new ZipException("Archive contains no files");
+        }
+    }
+
+    public List<ArchiveEntry> getEntries() {
+        return Collections.unmodifiableList(entries);
+    }
+
+    @Override
+    public void close() {
+        inflater.end();
+    }
+
+    private void onHeader() throws ZipException {
+        switch (state) {
+            case SIGNATURE:
+                this.onSignature(pending.getInt(0));
+                break;
+            case LOCAL_HEADER:
+                this.onLocalHeader();
+                break;
+            case LOCAL_NAME:
+                this.onLocalName();
+                break;
+            case DESCRIPTOR:
+                if (pending.getInt(0) == DATA_DESCRIPTOR_SIGNATURE) {
+                    this.expect(State.DESCRIPTOR_BODY, 12);
+                } else {
+                    //NOTE: the signature is optional, then these 4 bytes are already the CRC
+                    int descriptorCrc = pending.getInt(0);
+                    this.expect(State.DESCRIPTOR_BODY, 12);
+                    pending.putInt(descriptorCrc);
+                }
+                break;
+            case DESCRIPTOR_BODY:
+                this.verifyEntry(u32(0), u32(4), u32(8));
+                break;
+            case CENTRAL_HEADER:
+                this.onCentralHeader();
+                break;
+            case CENTRAL_NAME:
+                this.onCentralName();
+                break;
+            case END_HEADER:
+                this.onEndOfCentralDirectory();
+                break;
+            case END_COMMENT:
+                state = State.DONE;
+                break;
+            default:
+                throw new IllegalStateException("Unexpected state: " + state);
+        }
+    }
+
+    private void onSignature(int signature) throws ZipException {
+        signatureOffset = offset - Integer.BYTES;
+        if (signature == LOCAL_HEADER_SIGNATURE && centralDirectoryOffset < 0) {
+            entryOffset = signatureOffset;
+            this.expect(State.LOCAL_HEADER, 26);
+        } else if (signatureOffset == 0) {
+            throw new ZipException("Not a zip archive");
+        } else if (signature == CENTRAL_HEADER_SIGNATURE) {
+            if (centralDirectoryOffset < 0) {
+                centralDirectoryOffset = signatureOffset;
+            }
+            this.expect(State.CENTRAL_HEADER, 42);
+        } else if (signature == END_OF_CENTRAL_DIRECTORY_SIGNATURE) {
+            if (centralDirectoryOffset < 0) {
+                centralDirectoryOffset = signatureOffset;
+            }
+            this.expect(State.END_HEADER, 18);
+        } else {
+            throw new ZipException("Unsupported or corrupt zip record at offset " + signatureOffset);
+        }
+    }
+
+    private void onLocalHeader() throws ZipException {
+        entryFlags = u16(2);
+        entryMethod = u16(4);
+        entryCrc = u32(10);
+        entryCompressedSize = u32(14);
+        entryUncompressedSize = u32(18);
+        nameLength = u16(22);
+        int extraLength = u16(24);
+        if ((entryFlags & ENCRYPTED_FLAG) != 0) {
+            throw new ZipException("Encrypted entries are not supported");
+        }
+        if (entryMethod != STORED && entryMethod != DEFLATED) {
+            throw new ZipException("Unsupported compression method: " + entryMethod);
+        }
+        if (entryMethod == STORED && (entryFlags & DATA_DESCRIPTOR_FLAG) != 0) {
+            throw new ZipException("Stored entries with a data descriptor are not supported");
+        }
+        if (entryCompressedSize == ZIP64_MARKER || entryUncompressedSize == ZIP64_MARKER) {
+            throw new ZipException("ZIP64 archives are not supported");
+        }
+        this.expect(State.LOCAL_NAME, nameLength + extraLength);
+    }
+
+    private void onLocalName() throws ZipException {
+        entryName = this.string(0, nameLength);
+        crc.reset();
+        inflater.reset();
+        storedBytesRead = 0;
+        uncompressedBytesRead = 0;
+        state = State.ENTRY_DATA;
+        if (entryMethod == STORED && entryCompressedSize == 0) {
+            this.completeEntryData();
+        }
+    }
+
+    private void readEntryData(ByteBuffer input) throws ZipException {
+        int start = input.position();
+        if (entryMethod == STORED) {
+            int length = (int) Math.min(entryCompressedSize - storedBytesRead, input.remaining());
+            ByteBuffer chunk = input.slice();
+            chunk.limit(length);
+            crc.update(chunk);
+            input.position(start + length);
+            storedBytesRead += length;
+            this.countUncompressed(length);
+            if (storedBytesRead == entryCompressedSize) {
+                offset += input.position() - start;
+                this.completeEntryData();
+                return;
+            }
+        } else {
+            inflater.setInput(input);
+            try {
+                while (!inflater.finished() && !inflater.needsInput()) {
+                    inflated.clear();
+                    int length = inflater.inflate(inflated);
+                    if (length == 0 && !inflater.finished() && !inflater.needsInput()) {
+                        throw new ZipException("Corrupt compressed data in entry: " + entryName);
+                    }
+                    inflated.flip();
+                    crc.update(inflated);
+                    this.countUncompressed(length);
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException("Corrupt compressed data in entry " + entryName + ": " + e.getMessage());
+            }
+            if (inflater.finished()) {
+                offset += input.position() - start;
+                this.completeEntryData();
+                return;
+            }
+        }
+        offset += input.position() - start;
+    }
+
+    private void countUncompressed(int length) throws ZipException {
+        uncompressedBytesRead += length;
+        totalUncompressedSize += length;
+        if (totalUncompressedSize > maxUncompressedSize) {
+            throw new ZipException("Archive exceeds the maximum uncompressed size of " + maxUncompressedSize + " bytes");
+        }
+    }
+
+    private void completeEntryData() throws ZipException {
+        if ((entryFlags & DATA_DESCRIPTOR_FLAG) != 0) {
+            this.expect(State.DESCRIPTOR, Integer.BYTES);
+        } else {
+            this.verifyEntry(entryCrc, entryCompressedSize, entryUncompressedSize);
+        }
+    }
+
+    private void verifyEntry(long expectedCrc, long expectedCompressedSize, long expectedUncompressedSize) throws ZipException {
+        long compressedSize = entryMethod == STORED ? storedBytesRead : inflater.getBytesRead();
+        if (crc.getValue() != expectedCrc) {
+            throw new ZipException("CRC mismatch in entry: " + entryName);
+        }
+        if (compressedSize != expectedCompressedSize || uncompressedBytesRead != expectedUncompressedSize) {
+            throw new ZipException("Size mismatch in entry: " + entryName);
+        }
+        entries.add(new ArchiveEntry(entryName, uncompressedBytesRead, compressedSize, crc.getValue()));
+        entryOffsets.add(entryOffset);
+        this.expect(State.SIGNATURE, Integer.BYTES);
+    }
+
+    private void onCentralHeader() throws ZipException {
+        if (centralEntries >= entries.size()) {
+            throw new ZipException("Central directory lists more entries than the archive contains");
+        }
+        ArchiveEntry entry = entries.get(centralEntries);
+        if (u32(12) != entry.getCrc() || u32(16) != entry.getCompressedSize() || u32(20) != entry.getSize()
+                || u32(38) != entryOffsets.get(centralEntries)) {
+            throw new ZipException("Central directory does not match entry: " + entry.getName());
+        }
+        nameLength = u16(24);
+        this.expect(State.CENTRAL_NAME, nameLength + u16(26) + u16(28));
+    }
+
+    private void onCentralName() throws ZipException {
+        ArchiveEntry entry = entries.get(centralEntries);
+        if (!entry.getName().equals(this.string(0, nameLength))) {
+            throw new ZipException("Central directory does not match entry: " + entry.getName());
+        }
+        centralEntries++;
+        this.expect(State.SIGNATURE, Integer.BYTES);
+    }
+
+    private void onEndOfCentralDirectory() throws ZipException {
+        if (u16(6) != entries.size() || centralEntries != entries.size()) {
+            throw new ZipException("Central directory entry count does not match the archive");
+        }
+        if (u32(12) != centralDirectoryOffset || u32(8) != signatureOffset - centralDirectoryOffset) {
+            throw new ZipException("Central directory location does not match the archive");
+        }
+        this.expect(State.END_COMMENT, u16(16));
+    }
+
+    private void expect(State next, int length) {
+        state = next;
+        if (pending.capacity() < length) {
+            pending = ByteBuffer.allocate(length).order(ByteOrder.LITTLE_ENDIAN);
+        }
+        pending.clear();
+        pending.limit(length);
+    }
+
+    private int u16(int index) {
+        return pending.getShort(index) & 0xFFFF;
+    }
+
+    private long u32(int index) {
+        return pending.getInt(index) & 0xFFFFFFFFL;
+    }
+
+    private String string(int index, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = pending.get(index + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package com.ademirsoy.orderservice.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * Passes every byte read from the source through a {@link ZipStreamVerifier}, so an archive is verified
+ * by the same pass that stores it. A verification failure surfaces as a {@link java.util.zip.ZipException}
+ * from {@link #read}, before the end of the stream is reported, so storage never completes an invalid archive.
+ */
+public class ZipVerifyingChannel implements ReadableByteChannel {
+
+    private final ReadableByteChannel source;
+    private final ZipStreamVerifier verifier;
+
+    public ZipVerifyingChannel(ReadableByteChannel source, ZipStreamVerifier verifier) {
+        this.source = source;
+        this.verifier = verifier;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int start = dst.position();
+        int read = source.read(dst);
+        if (read > 0) {
+            ByteBuffer chunk = dst.duplicate();
+            chunk.flip();
+            chunk.position(start);
+            verifier.update(chunk);
+        } else if (read < 0) {
+            verifier.finish();
+        }
+        return read;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return source.isOpen();
+    }
+
+    @Override
+    public void close() throws IOException {
+        source.close();
+    }
+}
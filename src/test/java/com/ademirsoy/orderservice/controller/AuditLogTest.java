@@ -0,0 +1,113 @@
+package com.ademirsoy.orderservice.controller;
+
+import ch.qos.logback.classic.AsyncAppender;
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.Appender;
+import ch.qos.logback.core.AppenderBase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+class AuditLogTest {
+
+    Logger auditLogger = (Logger) LoggerFactory.getLogger("order-service.audit");
+    Appender<ILoggingEvent> configuredAppender = auditLogger.getAppender("AsyncAuditFile");
+    CountDownLatch release = new CountDownLatch(1);
+    CountDownLatch written = new CountDownLatch(1);
+    List<String> events = new CopyOnWriteArrayList<>();
+    AsyncAppender asyncAppender;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (asyncAppender != null) {
+            auditLogger.detachAppender(asyncAppender);
+            asyncAppender.stop();
+            auditLogger.addAppender(configuredAppender);
+        }
+    }
+
+    @Test
+    void auditLogger_shouldWriteThroughBoundedNonBlockingQueue() {
+        //WHEN-THEN
+        assertThat(auditLogger.getLevel()).isEqualTo(Level.INFO);
+        assertThat(auditLogger.isAdditive()).isFalse();
+        assertThat(configuredAppender).isInstanceOf(AsyncAppender.class);
+        AsyncAppender configured = (AsyncAppender) configuredAppender;
+        assertThat(configured.isNeverBlock()).isTrue();
+        assertThat(configured.getQueueSize()).isEqualTo(8192);
+        assertThat(configured.getAppender("AuditFile")).isNotNull();
+    }
+
+    @Test
+    void record_shouldHandEventToBackgroundThread_whileWriterIsBusy() throws Exception {
+        //GIVEN
+        this.replaceConfiguredAppender(16);
+
+        //WHEN
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> AuditLog.record("assign", "order", 5L, "photographer", 10L));
+        release.countDown();
+
+        //THEN
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(events).containsExactly("AsyncAppender-Worker-AsyncAuditFile: action=assign order=5 photographer=10");
+    }
+
+    @Test
+    void record_shouldDropEventsInsteadOfBlocking_whenQueueIsFull() {
+        //GIVEN
+        this.replaceConfiguredAppender(10);
+
+        //WHEN
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            for (int i = 0; i < 100; i++) {
+                AuditLog.record("get", "order", i);
+            }
+        });
+        release.countDown();
+        asyncAppender.stop();
+
+        //THEN
+        //NOTE: the queue holds 10 events and one more may be in the writer, INFO is dropped once it is 80% full
+        assertThat(events).isNotEmpty().hasSizeLessThanOrEqualTo(11);
+        assertThat(events.get(0)).endsWith("action=get order=0");
+    }
+
+    //NOTE: the same queue settings as the configured appender, in front of a writer that blocks until released
+    private void replaceConfiguredAppender(int queueSize) {
+        AppenderBase<ILoggingEvent> blockingWriter = new AppenderBase<>() {
+            @Override
+            protected void append(ILoggingEvent event) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                events.add(Thread.currentThread().getName() + ": " + event.getFormattedMessage());
+                written.countDown();
+            }
+        };
+        blockingWriter.setContext(auditLogger.getLoggerContext());
+        blockingWriter.start();
+        asyncAppender = new AsyncAppender();
+        asyncAppender.setContext(auditLogger.getLoggerContext());
+        asyncAppender.setName("AsyncAuditFile");
+        asyncAppender.setQueueSize(queueSize);
+        asyncAppender.setNeverBlock(((AsyncAppender) configuredAppender).isNeverBlock());
+        asyncAppender.addAppender(blockingWriter);
+        asyncAppender.start();
+        auditLogger.detachAppender(configuredAppender);
+        auditLogger.addAppender(asyncAppender);
+    }
+}
@@ -0,0 +1,86 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.exception.PreconditionFailedException;
+import com.ademirsoy.orderservice.model.Order;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ETagsTest {
+
+    @Test
+    void of_shouldQuoteVersion() {
+        //GIVEN
+        Order order = new Order();
+        order.setVersion(3L);
+
+        //WHEN
+        String eTag = ETags.of(order);
+
+        //THEN
+        assertThat(eTag).isEqualTo("\"3\"");
+    }
+
+    @Test
+    void of_shouldAppendFormatAndCoding_whenRepresentationIsNotPlainJson() {
+        //GIVEN
+        Order order = new Order();
+        order.setVersion(3L);
+
+        //WHEN-THEN
+        assertThat(ETags.of(order, MediaType.APPLICATION_JSON, false)).isEqualTo("\"3\"");
+        assertThat(ETags.of(order, MediaType.APPLICATION_JSON, true)).isEqualTo("\"3-gzip\"");
+        assertThat(ETags.of(order, MediaType.APPLICATION_CBOR, true)).isEqualTo("\"3-cbor-gzip\"");
+        assertThat(ETags.of(order, MediaType.valueOf("application/x-jackson-smile"), false)).isEqualTo("\"3-x-jackson-smile\"");
+    }
+
+    @Test
+    void parseIfMatch_shouldReturnVersion_whenTagIsOfAnotherRepresentation() {
+        //WHEN-THEN
+        assertThat(ETags.parseIfMatch("\"3-cbor-gzip\"")).isEqualTo(3L);
+        assertThrows(PreconditionFailedException.class, () -> ETags.parseIfMatch("\"-3\""));
+    }
+
+    @Test
+    void parseIfMatch_shouldReturnVersion_whenTagIsStrong() {
+        //WHEN
+        Long version = ETags.parseIfMatch(" \"3\" ");
+
+        //THEN
+        assertThat(version).isEqualTo(3L);
+    }
+
+    @Test
+    void parseIfMatch_shouldAcceptAnyVersion_whenHeaderIsMissingOrWildcard() {
+        //WHEN-THEN
+        assertThat(ETags.parseIfMatch(null)).isNull();
+        assertThat(ETags.parseIfMatch("*")).isNull();
+        assertThat(ETags.parseIfMatch(" * ")).isNull();
+    }
+
+    @Test
+    void parseIfMatch_shouldThrowException_whenTagIsWeak() {
+        //WHEN
+        PreconditionFailedException ex = assertThrows(PreconditionFailedException.class,
+                () -> ETags.parseIfMatch("W/\"3\""));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("If-Match does not match the current version: W/\"3\"");
+    }
+
+    @Test
+    void parseIfMatch_shouldThrowException_whenHeaderHoldsList() {
+        //WHEN-THEN
+        assertThrows(PreconditionFailedException.class, () -> ETags.parseIfMatch("\"3\", \"4\""));
+    }
+
+    @Test
+    void parseIfMatch_shouldThrowException_whenTagIsNotVersion() {
+        //WHEN-THEN
+        assertThrows(PreconditionFailedException.class, () -> ETags.parseIfMatch("\"abc\""));
+        assertThrows(PreconditionFailedException.class, () -> ETags.parseIfMatch("3"));
+        assertThrows(PreconditionFailedException.class, () -> ETags.parseIfMatch("\""));
+    }
+}
@@ -0,0 +1,78 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.exception.UnprocessableEntityException;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyCacheTest {
+
+    IdempotencyCache idempotencyCache = new IdempotencyCache(60000, DataSize.ofKilobytes(1));
+
+    @Test
+    void begin_shouldJoinRunningRequest_whenKeyIsRetried() {
+        //GIVEN
+        String fingerprint = IdempotencyCache.fingerprint("POST", "/orders", null, "application/json", null, body("{}"));
+        IdempotencyCache.Execution original = idempotencyCache.begin("key-1", fingerprint);
+
+        //WHEN
+        IdempotencyCache.Execution retry = idempotencyCache.begin("key-1", fingerprint);
+        idempotencyCache.complete(original, response(200, "{\"id\":1}"));
+        IdempotencyCache.Execution lateRetry = idempotencyCache.begin("key-1", fingerprint);
+
+        //THEN
+        assertThat(original.isOwner()).isTrue();
+        assertThat(retry.isOwner()).isFalse();
+        assertThat(lateRetry.isOwner()).isFalse();
+        assertThat(retry.getResponse().join().getBody()).isEqualTo(body("{\"id\":1}"));
+        assertThat(lateRetry.getResponse().join()).isSameAs(retry.getResponse().join());
+    }
+
+    @Test
+    void begin_shouldThrowException_whenKeyIsUsedForDifferentRequest() {
+        //GIVEN
+        idempotencyCache.begin("key-1", IdempotencyCache.fingerprint("POST", "/orders", null, "application/json", null, body("{\"photoType\":\"Food\"}")));
+        String otherRequest = IdempotencyCache.fingerprint("POST", "/orders", null, "application/json", null, body("{\"photoType\":\"Fashion\"}"));
+
+        //WHEN
+        UnprocessableEntityException ex = assertThrows(UnprocessableEntityException.class,
+                () -> idempotencyCache.begin("key-1", otherRequest));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("Idempotency-Key has already been used for a different request");
+    }
+
+    @Test
+    void complete_shouldNotKeepResponse_whenServerErrorOrCacheIsFull() {
+        //GIVEN
+        String fingerprint = IdempotencyCache.fingerprint("PATCH", "/orders/1/cancel", null, "application/json", null, body(""));
+        IdempotencyCache.Execution failed = idempotencyCache.begin("key-1", fingerprint);
+        idempotencyCache.complete(failed, response(500, "{}"));
+        IdempotencyCache.Execution first = idempotencyCache.begin("key-2", fingerprint);
+        idempotencyCache.complete(first, response(200, "x".repeat(600)));
+
+        //WHEN
+        IdempotencyCache.Execution second = idempotencyCache.begin("key-3", fingerprint);
+        idempotencyCache.complete(second, response(200, "y".repeat(600)));
+
+        //THEN
+        assertThat(idempotencyCache.begin("key-1", fingerprint).isOwner()).isTrue();
+        assertThat(idempotencyCache.begin("key-2", fingerprint).isOwner()).isTrue();
+        assertThat(idempotencyCache.begin("key-3", fingerprint).isOwner()).isFalse();
+        assertThat(idempotencyCache.getSize()).isLessThanOrEqualTo(DataSize.ofKilobytes(1).toBytes());
+    }
+
+    private static IdempotencyCache.RecordedResponse response(int status, String body) {
+        return new IdempotencyCache.RecordedResponse(status, Map.of("Content-Type", List.of("application/json")), body(body));
+    }
+
+    private static byte[] body(String body) {
+        return body.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,206 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.StreamUtils;
+import org.springframework.util.unit.DataSize;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.http.HttpServletResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+    IdempotencyCache idempotencyCache = new IdempotencyCache(60000, DataSize.ofMegabytes(1));
+    IdempotencyFilter filter = new IdempotencyFilter(idempotencyCache, new ObjectMapper(), 30000, DataSize.ofKilobytes(1));
+    AtomicInteger executions = new AtomicInteger();
+
+    //NOTE: creates an order with the next ID, echoing the request body
+    FilterChain createOrder = (request, response) -> {
+        String body = StreamUtils.copyToString(request.getInputStream(), StandardCharsets.UTF_8);
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        ((HttpServletResponse) response).addHeader(HttpHeaders.ETAG, "\"1\"");
+        response.getWriter().write("{\"id\":" + executions.incrementAndGet() + ",\"request\":" + body + "}");
+    };
+
+    @Test
+    void doFilter_shouldReplayOriginalResponse_whenRequestIsRetried() throws Exception {
+        //GIVEN
+        MockHttpServletResponse original = new MockHttpServletResponse();
+        filter.doFilter(request("key-1", "{\"photoType\":\"Food\"}"), original, createOrder);
+
+        //WHEN
+        MockHttpServletResponse retried = new MockHttpServletResponse();
+        filter.doFilter(request("key-1", "{\"photoType\":\"Food\"}"), retried, createOrder);
+        MockHttpServletResponse reused = new MockHttpServletResponse();
+        filter.doFilter(request("key-1", "{\"photoType\":\"Fashion\"}"), reused, createOrder);
+
+        //THEN
+        assertThat(executions).hasValue(1);
+        assertThat(original.getContentAsString()).isEqualTo("{\"id\":1,\"request\":{\"photoType\":\"Food\"}}");
+        assertThat(retried.getContentAsString()).isEqualTo(original.getContentAsString());
+        assertThat(retried.getHeader(HttpHeaders.ETAG)).isEqualTo("\"1\"");
+        assertThat(retried.getHeader(IdempotencyCache.IDEMPOTENT_REPLAYED)).isEqualTo("true");
+        assertThat(reused.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    void doFilter_shouldRunOnce_whenRetriesArriveConcurrently() throws Exception {
+        //GIVEN
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowCreateOrder = (request, response) -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            createOrder.doFilter(request, response);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        //WHEN
+        Future<?>[] requests = new Future<?>[4];
+        MockHttpServletResponse[] responses = new MockHttpServletResponse[4];
+        for (int i = 0; i < requests.length; i++) {
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            responses[i] = response;
+            requests[i] = executor.submit(() -> {
+                filter.doFilter(request("key-1", "{}"), response, slowCreateOrder);
+                return null;
+            });
+        }
+        //NOTE: gives the retries time to join the first request before it completes
+        Thread.sleep(100);
+        release.countDown();
+        for (Future<?> request : requests) {
+            request.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //THEN
+        assertThat(executions).hasValue(1);
+        for (MockHttpServletResponse response : responses) {
+            assertThat(response.getContentAsString()).isEqualTo("{\"id\":1,\"request\":{}}");
+        }
+    }
+
+    @Test
+    void doFilter_shouldReturnConflict_whenOriginalRequestOutlastsWaitTimeout() throws Exception {
+        //GIVEN
+        IdempotencyFilter impatientFilter = new IdempotencyFilter(idempotencyCache, new ObjectMapper(), 50, DataSize.ofKilobytes(1));
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        FilterChain slowCreateOrder = (request, response) -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            createOrder.doFilter(request, response);
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        MockHttpServletResponse original = new MockHttpServletResponse();
+        Future<?> originalRequest = executor.submit(() -> {
+            impatientFilter.doFilter(request("key-1", "{}"), original, slowCreateOrder);
+            return null;
+        });
+        started.await(30, TimeUnit.SECONDS);
+
+        //WHEN
+        MockHttpServletResponse retried = new MockHttpServletResponse();
+        impatientFilter.doFilter(request("key-1", "{}"), retried, createOrder);
+        release.countDown();
+        originalRequest.get(30, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        //THEN
+        assertThat(retried.getStatus()).isEqualTo(409);
+        assertThat(retried.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo(IdempotencyCache.RETRY_AFTER_SECONDS);
+        assertThat(retried.getContentAsString()).contains(IdempotencyCache.STILL_RUNNING);
+        assertThat(executions).hasValue(1);
+        assertThat(original.getContentAsString()).isEqualTo("{\"id\":1,\"request\":{}}");
+    }
+
+    @Test
+    void doFilter_shouldReturnBadRequest_whenBodyIsLargerThanMaxBodySize() throws Exception {
+        //GIVEN
+        MockHttpServletRequest request = request("key-1", "{\"notes\":\"" + "a".repeat(1024) + "\"}");
+
+        //WHEN
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request, response, createOrder);
+
+        //THEN
+        assertThat(response.getStatus()).isEqualTo(400);
+        assertThat(response.getContentAsString()).contains("must not have a body larger than 1024 bytes");
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void doFilter_shouldRejectRetry_whenItAcceptsAnotherMediaType() throws Exception {
+        //GIVEN
+        filter.doFilter(request("key-1", "{}"), new MockHttpServletResponse(), createOrder);
+        MockHttpServletRequest cborRetry = request("key-1", "{}");
+        cborRetry.addHeader(HttpHeaders.ACCEPT, "application/cbor");
+
+        //WHEN
+        MockHttpServletResponse retried = new MockHttpServletResponse();
+        filter.doFilter(cborRetry, retried, createOrder);
+
+        //THEN
+        assertThat(retried.getStatus()).isEqualTo(422);
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void doFilter_shouldNotifyReadListener_whenHandlerReadsBodyAsynchronously() throws Exception {
+        //GIVEN
+        List<String> notifications = new ArrayList<>();
+        FilterChain asyncRead = (request, response) -> request.getInputStream().setReadListener(new ReadListener() {
+            @Override
+            public void onDataAvailable() {
+                notifications.add("data");
+            }
+
+            @Override
+            public void onAllDataRead() {
+                notifications.add("all");
+            }
+
+            @Override
+            public void onError(Throwable t) {
+                notifications.add("error");
+            }
+        });
+
+        //WHEN
+        filter.doFilter(request("key-1", "{}"), new MockHttpServletResponse(), asyncRead);
+
+        //THEN
+        assertThat(notifications).containsExactly("data", "all");
+    }
+
+    private static MockHttpServletRequest request(String idempotencyKey, String body) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/orders");
+        request.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        request.addHeader(IdempotencyCache.IDEMPOTENCY_KEY, idempotencyKey);
+        request.setContent(body.getBytes(StandardCharsets.UTF_8));
+        return request;
+    }
+}
@@ -0,0 +1,345 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
+import com.ademirsoy.orderservice.exception.GlobalExceptionHandler;
+import com.ademirsoy.orderservice.exception.PreconditionFailedException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.model.response.OrderPage;
+import com.ademirsoy.orderservice.service.OrderEventPublisher;
+import com.ademirsoy.orderservice.service.OrderService;
+import com.ademirsoy.orderservice.service.OrderValidator;
+import com.ademirsoy.orderservice.service.UploadProcessor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@ExtendWith(MockitoExtension.class)
+class OrderControllerTest {
+
+    @Mock
+    OrderService orderService;
+    @Mock
+    OrderValidator orderValidator;
+    @Mock
+    UploadProcessor uploadProcessor;
+
+    OrderEventPublisher orderEventPublisher = new OrderEventPublisher(4, 1);
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        BinaryFormatConfig binaryFormatConfig = new BinaryFormatConfig();
+        MappingJackson2CborHttpMessageConverter cborConverter = binaryFormatConfig.cborHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+        MappingJackson2SmileHttpMessageConverter smileConverter = binaryFormatConfig.smileHttpMessageConverter(Jackson2ObjectMapperBuilder.json());
+        OrderResponseCache orderResponseCache = new OrderResponseCache(objectMapper, cborConverter, smileConverter,
+                DataSize.ofMegabytes(1), DataSize.ofKilobytes(1));
+        OrderController orderController = new OrderController(orderService, orderValidator, uploadProcessor,
+                orderEventPublisher, orderResponseCache, objectMapper);
+        mockMvc = MockMvcBuilders.standaloneSetup(orderController)
+                .setControllerAdvice(new GlobalExceptionHandler(new SimpleMeterRegistry()))
+                .setMessageConverters(new ByteArrayHttpMessageConverter(), new StringHttpMessageConverter(),
+                        new MappingJackson2HttpMessageConverter(objectMapper), cborConverter, smileConverter)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        orderEventPublisher.shutdown();
+    }
+
+    @Test
+    void events_shouldStreamOrderEvents_untilSubscriptionIsClosed() throws Exception {
+        //GIVEN
+        MvcResult result = mockMvc.perform(get("/orders/events?state=COMPLETED").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        Order pending = order(1L);
+        Order completed = order(2L);
+        completed.setState(OrderState.COMPLETED);
+
+        //WHEN
+        orderEventPublisher.publish(pending, OrderState.UPLOADED);
+        orderEventPublisher.publish(completed, OrderState.UPLOADED);
+        //NOTE: events are sent by a dispatcher thread, closing the subscription drops the ones not sent yet
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!result.getResponse().getContentAsString().endsWith("\n\n") && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        orderEventPublisher.shutdown();
+
+        //THEN
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM));
+        String[] lines = result.getResponse().getContentAsString().split("\n");
+        assertThat(lines).hasSize(3);
+        assertThat(lines[0]).isEqualTo("id:1");
+        assertThat(lines[1]).isEqualTo("event:order");
+        assertThat(objectMapper.readTree(lines[2].substring("data:".length())).get("orderId").asLong()).isEqualTo(2L);
+    }
+
+    @Test
+    void events_shouldRespondServiceUnavailable_whenTooManySubscribers() throws Exception {
+        //GIVEN
+        orderEventPublisher.subscribe(null, event -> {
+        }, () -> {
+        });
+
+        //WHEN-THEN
+        mockMvc.perform(get("/orders/events").accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(request().asyncNotStarted())
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER, "5"))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void export_shouldStreamOneJsonLinePerOrder() throws Exception {
+        //GIVEN
+        ArgumentCaptor<OrderFilter> filterCaptor = ArgumentCaptor.forClass(OrderFilter.class);
+        when(orderService.retrieveAll(filterCaptor.capture())).thenReturn(Stream.of(order(1L), order(2L), order(3L)));
+
+        //WHEN
+        MvcResult result = mockMvc.perform(get("/orders/export?state=PENDING"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        //THEN
+        assertThat(filterCaptor.getValue().getState()).isEqualTo(OrderState.PENDING);
+        assertThat(body).endsWith("\n");
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(3);
+        for (int i = 0; i < lines.length; i++) {
+            assertThat(objectMapper.readValue(lines[i], Order.class).getId()).isEqualTo(i + 1L);
+        }
+    }
+
+    @Test
+    void getAll_shouldRespondWithCborOrSmile_whenClientAcceptsIt() throws Exception {
+        //GIVEN
+        Order order = order(7L);
+        order.setDate(LocalDate.parse("2021-06-30"));
+        when(orderService.retrievePage(any(), isNull(), eq(100))).thenReturn(new OrderPage(List.of(order), null));
+
+        //WHEN
+        byte[] cbor = mockMvc.perform(get("/orders").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] smile = mockMvc.perform(get("/orders").accept(BinaryFormatConfig.APPLICATION_SMILE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(BinaryFormatConfig.APPLICATION_SMILE))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //THEN
+        OrderPage cborPage = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory())
+                .readValue(cbor, OrderPage.class);
+        OrderPage smilePage = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new SmileFactory())
+                .readValue(smile, OrderPage.class);
+        assertThat(cborPage.getOrders()).extracting(Order::getId).containsExactly(7L);
+        assertThat(cborPage.getOrders().get(0).getDate()).isEqualTo(LocalDate.parse("2021-06-30"));
+        assertThat(smilePage.getOrders()).extracting(Order::getId).containsExactly(7L);
+        assertThat(smilePage.getOrders().get(0).getDate()).isEqualTo(LocalDate.parse("2021-06-30"));
+    }
+
+    @Test
+    void getAll_shouldRespondNotAcceptable_whenClientAcceptsNoSupportedMediaType() throws Exception {
+        //WHEN-THEN
+        mockMvc.perform(get("/orders").accept(MediaType.APPLICATION_XML))
+                .andExpect(status().isNotAcceptable());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void create_shouldReadCborBody_whenClientSendsIt() throws Exception {
+        //GIVEN
+        Order order = new Order();
+        order.setDate(LocalDate.parse("2021-06-30"));
+        byte[] body = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory()).writeValueAsBytes(order);
+        ArgumentCaptor<Order> orderCaptor = ArgumentCaptor.forClass(Order.class);
+        when(orderService.create(orderCaptor.capture())).thenAnswer(invocation -> {
+            Order created = invocation.getArgument(0);
+            created.setId(7L);
+            created.setVersion(1L);
+            return created;
+        });
+
+        //WHEN-THEN
+        mockMvc.perform(post("/orders").contentType(MediaType.APPLICATION_CBOR).accept(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.id").value(7));
+        assertThat(orderCaptor.getValue().getDate()).isEqualTo(LocalDate.parse("2021-06-30"));
+    }
+
+    @Test
+    void get_shouldRespondGzipped_whenOrderIsLargeAndClientAcceptsGzip() throws Exception {
+        //GIVEN
+        Order order = order(7L);
+        order.setFiles(IntStream.range(0, 100).mapToObj(i -> "photos-" + i + ".zip").collect(Collectors.toList()));
+        when(orderService.retrieve(7L)).thenReturn(order);
+
+        //WHEN
+        byte[] gzipped = mockMvc.perform(get("/orders/7").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-gzip\""))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andReturn().getResponse().getContentAsByteArray();
+        byte[] plain = mockMvc.perform(get("/orders/7"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        //THEN
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(gzipped))) {
+            assertThat(inputStream.readAllBytes()).isEqualTo(plain);
+        }
+        assertThat(gzipped.length).isLessThan(plain.length);
+        assertThat(objectMapper.readTree(plain).get("files")).hasSize(100);
+    }
+
+    @Test
+    void get_shouldRespondUncompressed_whenOrderIsSmall() throws Exception {
+        //GIVEN
+        when(orderService.retrieve(7L)).thenReturn(order(7L));
+
+        //WHEN-THEN
+        mockMvc.perform(get("/orders/7").header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.id").value(7));
+    }
+
+    @Test
+    void get_shouldRespondNotModified_whenClientHoldsCurrentVersion() throws Exception {
+        //GIVEN
+        when(orderService.retrieve(7L)).thenReturn(order(7L));
+
+        //WHEN-THEN
+        mockMvc.perform(get("/orders/7").header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void get_shouldTagEachRepresentation_andVaryByAcceptAndAcceptEncoding() throws Exception {
+        //GIVEN
+        when(orderService.retrieve(7L)).thenReturn(order(7L));
+
+        //WHEN-THEN
+        mockMvc.perform(get("/orders/7").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-cbor\""));
+        mockMvc.perform(get("/orders/7").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, "\"1-cbor\""))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.VARY, "Accept, Accept-Encoding"))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-cbor\""));
+        mockMvc.perform(get("/orders/7").header(HttpHeaders.IF_NONE_MATCH, "\"1-cbor\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""))
+                .andExpect(jsonPath("$.id").value(7));
+    }
+
+    @Test
+    void complete_shouldRespondPreconditionFailed_whenIfMatchDoesNotMatchCurrentVersion() throws Exception {
+        //GIVEN
+        when(orderService.complete(7L, 2L)).thenThrow(new PreconditionFailedException("Order has been modified! Current version: 3"));
+
+        //WHEN-THEN
+        mockMvc.perform(patch("/orders/7/complete").contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "\"2\""))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(jsonPath("$.message").value("Order has been modified! Current version: 3"));
+    }
+
+    @Test
+    void cancel_shouldRespondPreconditionFailed_whenIfMatchIsWeak() throws Exception {
+        //WHEN-THEN
+        mockMvc.perform(patch("/orders/7/cancel").contentType(MediaType.APPLICATION_JSON).header(HttpHeaders.IF_MATCH, "W/\"2\""))
+                .andExpect(status().isPreconditionFailed());
+        verifyNoInteractions(orderService);
+    }
+
+    @Test
+    void uploadPhoto_shouldPassIfMatchVersion() throws Exception {
+        //GIVEN
+        MockMultipartFile file = new MockMultipartFile("file", "photos.zip", "application/zip", new byte[]{1});
+        Order uploaded = order(7L);
+        uploaded.setVersion(4L);
+        when(orderService.upload(7L, file, 3L)).thenReturn(uploaded);
+
+        //WHEN-THEN
+        mockMvc.perform(multipart("/orders/7/upload").file(file).header(HttpHeaders.IF_MATCH, "\"3\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"4\""));
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setVersion(1L);
+        order.setState(OrderState.PENDING);
+        return order;
+    }
+}
@@ -0,0 +1,130 @@
+package com.ademirsoy.orderservice.controller;
+
+import com.ademirsoy.orderservice.model.Contact;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+
+import java.io.ByteArrayInputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderResponseCacheTest {
+
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    @Test
+    void get_shouldSerializeAgain_whenOrderVersionChanged() throws Exception {
+        //GIVEN
+        OrderResponseCache orderResponseCache = cache(DataSize.ofMegabytes(1));
+        Order order = order(7L, 1L);
+        byte[] first = orderResponseCache.get(order, MediaType.APPLICATION_JSON).getBody();
+
+        //WHEN
+        byte[] cached = orderResponseCache.get(order, MediaType.APPLICATION_JSON).getBody();
+        order.setState(OrderState.CANCELLED);
+        order.setVersion(2L);
+        byte[] updated = orderResponseCache.get(order, MediaType.APPLICATION_JSON).getBody();
+
+        //THEN
+        assertThat(cached).isSameAs(first);
+        assertThat(objectMapper.readTree(updated).get("state").asText()).isEqualTo("CANCELLED");
+        assertThat(orderResponseCache.getSize()).isEqualTo(updated.length);
+    }
+
+    @Test
+    void get_shouldEvictLeastRecentlyUsed_whenMaxSizeExceeded() {
+        //GIVEN
+        int size = objectMapper.valueToTree(order(1L, 1L)).toString().length();
+        OrderResponseCache orderResponseCache = cache(DataSize.ofBytes(size * 2L));
+        byte[] first = orderResponseCache.get(order(1L, 1L), MediaType.APPLICATION_JSON).getBody();
+        byte[] second = orderResponseCache.get(order(2L, 1L), MediaType.APPLICATION_JSON).getBody();
+
+        //WHEN
+        orderResponseCache.get(order(1L, 1L), MediaType.APPLICATION_JSON);
+        orderResponseCache.get(order(3L, 1L), MediaType.APPLICATION_JSON);
+
+        //THEN
+        assertThat(orderResponseCache.get(order(1L, 1L), MediaType.APPLICATION_JSON).getBody()).isSameAs(first);
+        assertThat(orderResponseCache.get(order(2L, 1L), MediaType.APPLICATION_JSON).getBody()).isNotSameAs(second);
+        assertThat(orderResponseCache.getSize()).isLessThanOrEqualTo(size * 2L);
+    }
+
+    @Test
+    void get_shouldStayWithinMaxSize_whenOrdersAreReadConcurrently() throws Exception {
+        //GIVEN
+        int size = objectMapper.valueToTree(order(1L, 1L)).toString().length();
+        OrderResponseCache orderResponseCache = cache(DataSize.ofBytes(size * 10L));
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            readers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < 10_000; j++) {
+                    long id = ThreadLocalRandom.current().nextLong(1, 50);
+                    byte[] body = orderResponseCache.get(order(id, j % 3 + 1L), MediaType.APPLICATION_JSON).getBody();
+                    assertThat(objectMapper.readTree(body).get("id").asLong()).isEqualTo(id);
+                }
+                return null;
+            }));
+        }
+
+        //WHEN
+        start.countDown();
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //THEN
+        assertThat(orderResponseCache.getSize()).isPositive().isLessThanOrEqualTo(size * 10L);
+    }
+
+    @Test
+    void get_shouldKeepGzippedBody_whenResponseIsLargeEnough() throws Exception {
+        //GIVEN
+        OrderResponseCache orderResponseCache = new OrderResponseCache(objectMapper, new MappingJackson2CborHttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(), DataSize.ofMegabytes(1), DataSize.ofBytes(100));
+
+        //WHEN
+        OrderResponseCache.Response response = orderResponseCache.get(order(7L, 1L), MediaType.APPLICATION_JSON);
+
+        //THEN
+        try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(response.getGzippedBody()))) {
+            assertThat(inputStream.readAllBytes()).isEqualTo(response.getBody());
+        }
+        assertThat(OrderResponseCache.acceptsGzip("deflate, gzip;q=0.8")).isTrue();
+        assertThat(OrderResponseCache.acceptsGzip("gzip;q=0, br")).isFalse();
+        assertThat(OrderResponseCache.acceptsGzip(null)).isFalse();
+    }
+
+    private OrderResponseCache cache(DataSize maxSize) {
+        return new OrderResponseCache(objectMapper, new MappingJackson2CborHttpMessageConverter(),
+                new MappingJackson2SmileHttpMessageConverter(), maxSize, DataSize.ofMegabytes(1));
+    }
+
+    private static Order order(Long id, Long version) {
+        Order order = new Order();
+        order.setId(id);
+        order.setContact(new Contact("lorenzo", "insigne", "lorenzo@napoli.it", "1234567890"));
+        order.setState(OrderState.PENDING);
+        order.setVersion(version);
+        return order;
+    }
+}
@@ -0,0 +1,88 @@
+package com.ademirsoy.orderservice.persistence;
+
+import com.ademirsoy.orderservice.model.ArchiveEntry;
+import com.ademirsoy.orderservice.model.ArchiveManifest;
+import com.ademirsoy.orderservice.model.Contact;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.PhotoType;
+import com.ademirsoy.orderservice.model.Photographer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EntityCodecTest {
+
+    @Test
+    void decodeOrder_shouldRestoreAllFields_whenOrderIsComplete() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(42L);
+        order.setCreatedDate(Instant.parse("2021-06-01T10:15:30.123456789Z"));
+        order.setModifiedDate(Instant.parse("2021-06-02T10:15:30Z"));
+        order.setVersion(9L);
+        order.setContact(new Contact("lorenzo", "insigne", "lorenzo@napoli.it", "1234567890"));
+        order.setPhotoType(PhotoType.Events);
+        order.setTitle("Wedding ünd more");
+        order.setLogisticInfo("Second floor");
+        order.setDate(LocalDate.parse("2021-06-30"));
+        order.setTime(LocalTime.parse("10:30:00"));
+        order.setTimezone(TimeZone.getTimeZone("Europe/Istanbul"));
+        order.setDurationInHours(3);
+        order.setState(OrderState.UPLOADED);
+        order.setPhotographerId(7L);
+        order.setFiles(new ArrayList<>(Arrays.asList("first.zip", "second.zip")));
+        order.setManifests(new ArrayList<>(Arrays.asList(
+                ArchiveManifest.of("first.zip", Arrays.asList(new ArchiveEntry("a.jpg", 10, 8, 123), new ArchiveEntry("notes.txt", 2, 2, 7))),
+                ArchiveManifest.of("second.zip", new ArrayList<>()))));
+
+        //WHEN
+        byte[] record = EntityCodec.encode(order);
+        Order actual = EntityCodec.decodeOrder(record);
+
+        //THEN
+        assertThat(EntityCodec.typeOf(record)).isEqualTo(EntityCodec.ORDER);
+        assertThat(actual).isEqualTo(order);
+        assertThat(actual.getCreatedDate()).isEqualTo(order.getCreatedDate());
+        assertThat(actual.getVersion()).isEqualTo(9L);
+    }
+
+    @Test
+    void decodeOrder_shouldKeepNulls_whenOrderIsEmpty() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(1L);
+        order.setTimezone(null);
+
+        //WHEN
+        Order actual = EntityCodec.decodeOrder(EntityCodec.encode(order));
+
+        //THEN
+        assertThat(actual).isEqualTo(order);
+    }
+
+    @Test
+    void decodePhotographer_shouldRestoreAllFields() {
+        //GIVEN
+        Photographer photographer = new Photographer();
+        photographer.setId(3L);
+        photographer.setName("Immobile");
+        photographer.setCreatedDate(Instant.parse("2021-06-01T10:15:30Z"));
+
+        //WHEN
+        byte[] record = EntityCodec.encode(photographer);
+        Photographer actual = EntityCodec.decodePhotographer(record);
+
+        //THEN
+        assertThat(EntityCodec.typeOf(record)).isEqualTo(EntityCodec.PHOTOGRAPHER);
+        assertThat(actual).isEqualTo(photographer);
+        assertThat(actual.getCreatedDate()).isEqualTo(photographer.getCreatedDate());
+    }
+}
@@ -0,0 +1,127 @@
+package com.ademirsoy.orderservice.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileJournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void replay_shouldReturnAppendedRecordsInOrder_whenJournalIsReopened() throws Exception {
+        //GIVEN
+        List<String> expected = IntStream.range(0, 10_000).mapToObj(i -> "record-" + i).collect(Collectors.toList());
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            expected.forEach(record -> journal.append(bytes(record)));
+        }
+
+        //WHEN
+        List<String> actual = replay();
+
+        //THEN
+        assertThat(actual).isEqualTo(expected);
+    }
+
+    @Test
+    void replay_shouldDropTornTail_whenLastRecordIsIncomplete() throws Exception {
+        //GIVEN
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+        }
+        Path segment = directory.resolve("journal-0000000000000000001.log");
+        long validSize = Files.size(segment);
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            channel.write(ByteBuffer.wrap(new byte[]{0, 0, 0, 100, 1, 2, 3}));
+        }
+
+        //WHEN
+        List<String> actual = replay();
+
+        //THEN
+        assertThat(actual).containsExactly("first", "second");
+        assertThat(Files.size(segment)).isEqualTo(validSize);
+    }
+
+    @Test
+    void append_shouldContinueAfterRecoveredRecords_whenJournalIsReopened() throws Exception {
+        //GIVEN
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            journal.append(bytes("first"));
+        }
+
+        //WHEN
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            journal.append(bytes("second"));
+        }
+
+        //THEN
+        assertThat(replay()).containsExactly("first", "second");
+    }
+
+    @Test
+    void replay_shouldLoadSnapshotAndJournalTail_whenSnapshotWasTaken() throws Exception {
+        //GIVEN
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            journal.append(bytes("first"));
+            journal.append(bytes("second"));
+            journal.snapshot(() -> Stream.of(bytes("compacted")));
+            journal.append(bytes("third"));
+        }
+
+        //WHEN
+        List<String> actual = replay();
+
+        //THEN
+        assertThat(actual).containsExactly("compacted", "third");
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.map(file -> file.getFileName().toString())).containsExactlyInAnyOrder(
+                    "snapshot-0000000000000000002.snap", "journal-0000000000000000002.log");
+        }
+    }
+
+    @Test
+    void snapshot_shouldReplaceOlderSnapshot_whenTakenAgain() throws Exception {
+        //GIVEN
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            journal.snapshot(() -> Stream.of(bytes("old")));
+            journal.append(bytes("first"));
+        }
+
+        //WHEN
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            journal.snapshot(() -> Stream.of(bytes("new")));
+            journal.append(bytes("second"));
+        }
+
+        //THEN
+        assertThat(replay()).containsExactly("new", "second");
+    }
+
+    private List<String> replay() throws Exception {
+        List<String> records = new ArrayList<>();
+        try (FileJournal journal = new FileJournal(directory, 128)) {
+            journal.replay(record -> records.add(new String(record, StandardCharsets.UTF_8)));
+        }
+        return records;
+    }
+
+    private static byte[] bytes(String record) {
+        return record.getBytes(StandardCharsets.UTF_8);
+    }
+}
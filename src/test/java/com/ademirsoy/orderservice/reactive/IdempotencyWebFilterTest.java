@@ -0,0 +1,140 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.controller.IdempotencyCache;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class IdempotencyWebFilterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    IdempotencyCache idempotencyCache = new IdempotencyCache(60000, DataSize.ofMegabytes(1));
+    IdempotencyWebFilter filter = new IdempotencyWebFilter(idempotencyCache, new ObjectMapper(), 30000, DataSize.ofKilobytes(1));
+    AtomicInteger executions = new AtomicInteger();
+    Sinks.Empty<Void> release = Sinks.empty();
+
+    //NOTE: creates an order with the next ID
+    WebFilterChain createOrder = exchange -> Mono.defer(() -> {
+        int id = executions.incrementAndGet();
+        ServerHttpResponse response = exchange.getResponse();
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        return response.writeWith(Mono.fromSupplier(() -> response.bufferFactory()
+                .wrap(("{\"id\":" + id + "}").getBytes(StandardCharsets.UTF_8))));
+    });
+    WebFilterChain slowCreateOrder = exchange -> release.asMono().then(createOrder.filter(exchange));
+
+    @Test
+    void filter_shouldNotRunRequestAgain_whenReplayFails() {
+        //GIVEN
+        filter.filter(exchange("key-1", "{}"), createOrder).block(TIMEOUT);
+        MockServerWebExchange retry = exchange("key-1", "{}");
+        retry.getResponse().setWriteHandler(body -> Mono.error(new IllegalStateException("Connection reset")));
+
+        //WHEN
+        IllegalStateException ex = assertThrows(IllegalStateException.class, () -> filter.filter(retry, createOrder).block(TIMEOUT));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("Connection reset");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void filter_shouldReplayOriginalResponse_whenOriginalRequestIsCancelled() throws Exception {
+        //GIVEN
+        MockServerWebExchange original = exchange("key-1", "{}");
+        Disposable originalRequest = filter.filter(original, slowCreateOrder).subscribe();
+        originalRequest.dispose();
+
+        //WHEN
+        MockServerWebExchange retry = exchange("key-1", "{}");
+        CompletableFuture<Void> retried = filter.filter(retry, slowCreateOrder).toFuture();
+        release.tryEmitEmpty();
+        retried.get(5, TimeUnit.SECONDS);
+
+        //THEN
+        assertThat(executions).hasValue(1);
+        assertThat(retry.getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("{\"id\":1}");
+        assertThat(retry.getResponse().getHeaders().getFirst(IdempotencyCache.IDEMPOTENT_REPLAYED)).isEqualTo("true");
+    }
+
+    @Test
+    void filter_shouldReturnConflict_whenOriginalRequestOutlastsWaitTimeout() {
+        //GIVEN
+        IdempotencyWebFilter impatientFilter = new IdempotencyWebFilter(idempotencyCache, new ObjectMapper(), 50, DataSize.ofKilobytes(1));
+        CompletableFuture<Void> originalRequest = impatientFilter.filter(exchange("key-1", "{}"), slowCreateOrder).toFuture();
+
+        //WHEN
+        MockServerWebExchange retry = exchange("key-1", "{}");
+        impatientFilter.filter(retry, slowCreateOrder).block(TIMEOUT);
+        release.tryEmitEmpty();
+        originalRequest.join();
+
+        //THEN
+        assertThat(retry.getResponse().getStatusCode()).isEqualTo(HttpStatus.CONFLICT);
+        assertThat(retry.getResponse().getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo(IdempotencyCache.RETRY_AFTER_SECONDS);
+        assertThat(retry.getResponse().getBodyAsString().block(TIMEOUT)).contains(IdempotencyCache.STILL_RUNNING);
+        MockServerWebExchange lateRetry = exchange("key-1", "{}");
+        impatientFilter.filter(lateRetry, slowCreateOrder).block(TIMEOUT);
+        assertThat(lateRetry.getResponse().getBodyAsString().block(TIMEOUT)).isEqualTo("{\"id\":1}");
+        assertThat(executions).hasValue(1);
+    }
+
+    @Test
+    void filter_shouldReturnBadRequest_whenBodyIsLargerThanMaxBodySize() {
+        //GIVEN
+        MockServerWebExchange exchange = exchange("key-1", "{\"notes\":\"" + "a".repeat(1024) + "\"}");
+
+        //WHEN
+        filter.filter(exchange, createOrder).block(TIMEOUT);
+
+        //THEN
+        assertThat(exchange.getResponse().getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST);
+        assertThat(exchange.getResponse().getBodyAsString().block(TIMEOUT)).contains("must not have a body larger than 1024 bytes");
+        assertThat(executions).hasValue(0);
+    }
+
+    @Test
+    void filter_shouldRejectRetry_whenItAcceptsAnotherMediaType() {
+        //GIVEN
+        filter.filter(exchange("key-1", "{}"), createOrder).block(TIMEOUT);
+        MockServerWebExchange cborRetry = MockServerWebExchange.from(MockServerHttpRequest.post("/orders")
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, "key-1")
+                .contentType(MediaType.APPLICATION_JSON)
+                .accept(MediaType.APPLICATION_CBOR)
+                .body("{}"));
+
+        //WHEN
+        filter.filter(cborRetry, createOrder).block(TIMEOUT);
+
+        //THEN
+        assertThat(cborRetry.getResponse().getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(executions).hasValue(1);
+    }
+
+    private static MockServerWebExchange exchange(String idempotencyKey, String body) {
+        return MockServerWebExchange.from(MockServerHttpRequest.post("/orders")
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, idempotencyKey)
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body));
+    }
+}
@@ -0,0 +1,259 @@
+package com.ademirsoy.orderservice.reactive;
+
+import com.ademirsoy.orderservice.config.BinaryFormatConfig;
+import com.ademirsoy.orderservice.controller.IdempotencyCache;
+import com.ademirsoy.orderservice.controller.OrderResponseCache;
+import com.ademirsoy.orderservice.exception.InvalidOrderStateException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.model.response.OrderEvent;
+import com.ademirsoy.orderservice.model.response.OrderPage;
+import com.ademirsoy.orderservice.service.OrderValidator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.reactive.function.server.HandlerStrategies;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReactiveRoutesTest {
+
+    @Mock
+    ReactiveOrderFacade orderFacade;
+    @Mock
+    ReactivePhotographerFacade photographerFacade;
+    @Mock
+    OrderValidator orderValidator;
+
+    WebTestClient client;
+
+    @BeforeEach
+    void setUp() {
+        ReactiveRoutes routes = new ReactiveRoutes();
+        ReactiveExceptionHandler exceptionHandler = new ReactiveExceptionHandler(new SimpleMeterRegistry());
+        CodecCustomizer binaryCodecs = routes.binaryCodecCustomizer(Jackson2ObjectMapperBuilder.cbor(),
+                Jackson2ObjectMapperBuilder.smile());
+        OrderResponseCache orderResponseCache = new OrderResponseCache(Jackson2ObjectMapperBuilder.json().build(),
+                new MappingJackson2CborHttpMessageConverter(), new MappingJackson2SmileHttpMessageConverter(),
+                DataSize.ofMegabytes(1), DataSize.ofKilobytes(1));
+        client = WebTestClient
+                .bindToRouterFunction(routes.orderRoutes(new OrderHandler(orderFacade, orderValidator, orderResponseCache), exceptionHandler)
+                        .and(routes.photographerRoutes(new PhotographerHandler(photographerFacade, orderValidator), exceptionHandler)))
+                .webFilter(new IdempotencyWebFilter(new IdempotencyCache(60000, DataSize.ofMegabytes(1)), new ObjectMapper(),
+                        30000, DataSize.ofMegabytes(1)))
+                .handlerStrategies(HandlerStrategies.builder().codecs(binaryCodecs::customize).build())
+                .build();
+    }
+
+    @Test
+    void getAll_shouldBindFilterAndPaging() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(7L);
+        ArgumentCaptor<OrderFilter> filterCaptor = ArgumentCaptor.forClass(OrderFilter.class);
+        when(orderFacade.retrievePage(filterCaptor.capture(), isNull(), eq(10)))
+                .thenReturn(Mono.just(new OrderPage(List.of(order), null)));
+
+        //WHEN-THEN
+        client.get().uri("/orders?state=PENDING&photographerId=3&limit=10")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.orders[0].id").isEqualTo(7);
+        assertThat(filterCaptor.getValue().getState()).isEqualTo(OrderState.PENDING);
+        assertThat(filterCaptor.getValue().getPhotographerId()).isEqualTo(3L);
+        verify(orderValidator).validatePageSize(10);
+    }
+
+    @Test
+    void getAll_shouldRespondWithCbor_whenClientAcceptsIt() throws Exception {
+        //GIVEN
+        Order order = new Order();
+        order.setId(7L);
+        order.setDate(LocalDate.parse("2021-06-30"));
+        when(orderFacade.retrievePage(any(), isNull(), eq(100))).thenReturn(Mono.just(new OrderPage(List.of(order), null)));
+
+        //WHEN
+        byte[] body = client.get().uri("/orders")
+                .accept(MediaType.APPLICATION_CBOR, MediaType.APPLICATION_JSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        //THEN
+        OrderPage page = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new CBORFactory())
+                .readValue(body, OrderPage.class);
+        assertThat(page.getOrders()).extracting(Order::getId).containsExactly(7L);
+        assertThat(page.getOrders().get(0).getDate()).isEqualTo(LocalDate.parse("2021-06-30"));
+    }
+
+    @Test
+    void getAll_shouldRespondWithSmile_whenClientAcceptsIt() throws Exception {
+        //GIVEN
+        Order order = new Order();
+        order.setId(7L);
+        order.setDate(LocalDate.parse("2021-06-30"));
+        when(orderFacade.retrievePage(any(), isNull(), eq(100))).thenReturn(Mono.just(new OrderPage(List.of(order), null)));
+
+        //WHEN
+        byte[] body = client.get().uri("/orders")
+                .accept(BinaryFormatConfig.APPLICATION_SMILE)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(BinaryFormatConfig.APPLICATION_SMILE)
+                .expectBody(byte[].class).returnResult().getResponseBody();
+
+        //THEN
+        OrderPage page = BinaryFormatConfig.binaryMapper(Jackson2ObjectMapperBuilder.json(), new SmileFactory())
+                .readValue(body, OrderPage.class);
+        assertThat(page.getOrders()).extracting(Order::getId).containsExactly(7L);
+        assertThat(page.getOrders().get(0).getDate()).isEqualTo(LocalDate.parse("2021-06-30"));
+    }
+
+    @Test
+    void get_shouldRespondWithCachedOrder_untilClientHoldsCurrentVersion() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(7L);
+        order.setVersion(3L);
+        when(orderFacade.retrieve(7L)).thenReturn(Mono.just(order));
+
+        //WHEN-THEN
+        client.get().uri("/orders/7")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentType(MediaType.APPLICATION_JSON)
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3\"")
+                .expectHeader().valueEquals(HttpHeaders.VARY, "Accept, Accept-Encoding")
+                .expectBody().jsonPath("$.id").isEqualTo(7);
+        client.get().uri("/orders/7")
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.VARY, "Accept, Accept-Encoding");
+        client.get().uri("/orders/7")
+                .accept(MediaType.APPLICATION_CBOR)
+                .header(HttpHeaders.IF_NONE_MATCH, "\"3\"")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"3-cbor\"");
+    }
+
+    @Test
+    void create_shouldReplayOriginalResponse_whenRetriedWithIdempotencyKey() {
+        //GIVEN
+        Order created = new Order();
+        created.setId(7L);
+        created.setVersion(1L);
+        when(orderFacade.create(any())).thenReturn(Mono.just(created));
+        String order = "{\"photoType\":\"Food\"}";
+
+        //WHEN-THEN
+        client.post().uri("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, "key-1")
+                .bodyValue(order)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.id").isEqualTo(7);
+        client.post().uri("/orders")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header(IdempotencyCache.IDEMPOTENCY_KEY, "key-1")
+                .bodyValue(order)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, "\"1\"")
+                .expectHeader().valueEquals(IdempotencyCache.IDEMPOTENT_REPLAYED, "true")
+                .expectBody().jsonPath("$.id").isEqualTo(7);
+        verify(orderFacade, times(1)).create(any());
+    }
+
+    @Test
+    void export_shouldStreamNewlineDelimitedJson() {
+        //GIVEN
+        Order first = new Order();
+        first.setId(1L);
+        Order second = new Order();
+        second.setId(2L);
+        when(orderFacade.retrieveAll(any())).thenReturn(Flux.just(first, second));
+
+        //WHEN
+        String body = client.get().uri("/orders/export")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        //THEN
+        assertThat(body.split("\n")).hasSize(2);
+    }
+
+    @Test
+    void events_shouldStreamServerSentEvents() {
+        //GIVEN
+        OrderEvent event = new OrderEvent(9L, 5L, 2L, OrderState.PENDING, OrderState.ASSIGNED, 3L, null);
+        ArgumentCaptor<OrderFilter> filterCaptor = ArgumentCaptor.forClass(OrderFilter.class);
+        when(orderFacade.events(filterCaptor.capture())).thenReturn(Mono.just(Flux.just(event)));
+
+        //WHEN
+        String body = client.get().uri("/orders/events?photographerId=3")
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class).returnResult().getResponseBody();
+
+        //THEN
+        assertThat(filterCaptor.getValue().getPhotographerId()).isEqualTo(3L);
+        assertThat(body).startsWith("id:9\nevent:order\ndata:");
+        assertThat(body).contains("\"orderId\":5", "\"state\":\"ASSIGNED\"");
+    }
+
+    @Test
+    void transition_shouldRespondBadRequest_whenServiceRejectsIt() {
+        //GIVEN
+        when(orderFacade.complete(5L, null)).thenReturn(Mono.error(new InvalidOrderStateException("Only UPLOADED orders can be completed!")));
+
+        //WHEN-THEN
+        client.patch().uri("/orders/5/complete")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Only UPLOADED orders can be completed!");
+    }
+
+    @Test
+    void transition_shouldRespondBadRequest_whenIdIsMalformed() {
+        //WHEN-THEN
+        client.patch().uri("/orders/abc/cancel")
+                .exchange()
+                .expectStatus().isBadRequest()
+                .expectBody().jsonPath("$.message").isEqualTo("Invalid id: abc");
+    }
+}
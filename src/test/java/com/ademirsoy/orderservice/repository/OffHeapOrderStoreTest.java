@@ -0,0 +1,155 @@
+package com.ademirsoy.orderservice.repository;
+
+import com.ademirsoy.orderservice.model.Contact;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.PhotoType;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapOrderStoreTest {
+
+    private static final int SLAB_SIZE = 4096;
+
+    OffHeapOrderStore orderStore = new OffHeapOrderStore(SLAB_SIZE);
+
+    @Test
+    void get_shouldReturnCopyOfStoredOrder() {
+        //GIVEN
+        Order order = order(7L);
+
+        //WHEN
+        orderStore.put(order, null);
+        Order stored = orderStore.get(7L);
+        stored.setState(OrderState.CANCELLED);
+
+        //THEN
+        assertThat(orderStore.get(7L)).isNotSameAs(order).isEqualTo(order);
+        assertThat(orderStore.get(7L).getState()).isEqualTo(OrderState.PENDING);
+        assertThat(orderStore.get(8L)).isNull();
+    }
+
+    @Test
+    void put_shouldReuseSlabs_whenOrdersAreUpdatedRepeatedly() {
+        //GIVEN
+        for (long id = 1; id <= 100; id++) {
+            orderStore.put(order(id), null);
+        }
+        long capacity = orderStore.getCapacity();
+
+        //WHEN
+        for (int round = 0; round < 20; round++) {
+            for (long id = 1; id <= 100; id++) {
+                Order order = orderStore.get(id);
+                order.setVersion((long) round);
+                orderStore.put(order, null);
+            }
+        }
+
+        //THEN
+        assertThat(orderStore.getCapacity()).isLessThanOrEqualTo(capacity * 2 + SLAB_SIZE);
+        assertThat(orderStore.values()).hasSize(100).allMatch(order -> order.getVersion() == 19L);
+    }
+
+    @Test
+    void ids_shouldReturnIdsInOrder_whenAfterIdGiven() {
+        //GIVEN
+        orderStore.put(order(3L), null);
+        orderStore.put(order(1L), null);
+        orderStore.put(order(70000L), null);
+
+        //WHEN
+        List<Long> all = orderStore.ids(null).collect(Collectors.toList());
+        List<Long> afterFirst = orderStore.ids(1L).collect(Collectors.toList());
+
+        //THEN
+        assertThat(all).containsExactly(1L, 3L, 70000L);
+        assertThat(afterFirst).containsExactly(3L, 70000L);
+    }
+
+    @Test
+    void get_shouldReturnLatestVersion_whenReadWhileOrdersAreMoved() throws Exception {
+        //GIVEN
+        for (long id = 1; id <= 50; id++) {
+            orderStore.put(order(id), null);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        AtomicBoolean writing = new AtomicBoolean(true);
+        List<Future<?>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            readers.add(executor.submit(() -> {
+                while (writing.get()) {
+                    for (long id = 1; id <= 50; id++) {
+                        assertThat(orderStore.get(id).getId()).isEqualTo(id);
+                    }
+                }
+            }));
+        }
+
+        //WHEN
+        for (int round = 0; round < 200; round++) {
+            for (long id = 1; id <= 50; id++) {
+                Order order = orderStore.get(id);
+                order.setVersion((long) round);
+                orderStore.put(order, null);
+            }
+        }
+        writing.set(false);
+
+        //THEN
+        for (Future<?> reader : readers) {
+            reader.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+        assertThat(orderStore.values()).allMatch(order -> order.getVersion() == 199L);
+    }
+
+    @Test
+    void findAll_shouldFilterOrders_whenRepositoryStoresOffHeap() {
+        //GIVEN
+        OrderRepository orderRepository = new OrderRepository(new NoOpJournal(), orderStore);
+        Order first = orderRepository.create(order(null));
+        Order second = orderRepository.create(order(null));
+        second.setState(OrderState.CANCELLED);
+        orderRepository.update(second);
+        OrderFilter filter = new OrderFilter();
+        filter.setState(OrderState.CANCELLED);
+
+        //WHEN
+        List<Order> cancelled = orderRepository.findAll(filter, null, 10);
+        List<Order> afterFirst = orderRepository.findAll(new OrderFilter(), first.getId(), 10);
+
+        //THEN
+        assertThat(cancelled).extracting(Order::getId).containsExactly(second.getId());
+        assertThat(afterFirst).extracting(Order::getId).containsExactly(second.getId());
+        assertThat(orderRepository.findById(second.getId()).getVersion()).isEqualTo(2L);
+    }
+
+    private static Order order(Long id) {
+        Order order = new Order();
+        order.setId(id);
+        order.setContact(new Contact("lorenzo", "insigne", "lorenzo@napoli.it", "1234567890"));
+        order.setPhotoType(PhotoType.Food);
+        order.setDate(LocalDate.parse("2021-06-01"));
+        order.setTime(LocalTime.of(10, 0));
+        order.setTimezone(TimeZone.getTimeZone("Europe/Berlin"));
+        order.setState(OrderState.PENDING);
+        order.setVersion(1L);
+        return order;
+    }
+}
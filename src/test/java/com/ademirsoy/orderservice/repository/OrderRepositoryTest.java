@@ -0,0 +1,349 @@
+package com.ademirsoy.orderservice.repository;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.PhotoType;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderRepositoryTest {
+
+    private static final int WRITERS = 64;
+    private static final int ORDERS_PER_WRITER = 2_000;
+    private static final int ORDERS_PER_READ_WRITER = 200;
+
+    OrderRepository orderRepository = new OrderRepository(new NoOpJournal());
+
+    @Test
+    void create_shouldNotLoseOrAllocateDuplicateIds_whenCalledByConcurrentWriters() throws Exception {
+        //GIVEN
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                List<Long> ids = new ArrayList<>();
+                for (int j = 0; j < ORDERS_PER_WRITER; j++) {
+                    Order order = orderRepository.create(new Order());
+                    order.setState(OrderState.CANCELLED);
+                    orderRepository.update(order);
+                    ids.add(order.getId());
+                }
+                return ids;
+            }));
+        }
+
+        //WHEN
+        start.countDown();
+        List<Long> allocatedIds = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            allocatedIds.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        //THEN
+        int expectedCount = WRITERS * ORDERS_PER_WRITER;
+        Set<Long> expectedIds = LongStream.rangeClosed(1, expectedCount).boxed().collect(Collectors.toSet());
+        assertThat(allocatedIds).hasSize(expectedCount);
+        assertThat(new HashSet<>(allocatedIds)).isEqualTo(expectedIds);
+        assertThat(orderRepository.findAll()).hasSize(expectedCount);
+        assertThat(orderRepository.findAll()).allMatch(order -> OrderState.CANCELLED.equals(order.getState()));
+    }
+
+    @Test
+    void findAll_shouldBeIterable_whileOrdersAreBeingCreated() throws Exception {
+        //GIVEN
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < ORDERS_PER_READ_WRITER; j++) {
+                    orderRepository.create(new Order());
+                }
+                return null;
+            }));
+        }
+
+        //WHEN
+        start.countDown();
+        long previousId = 0;
+        boolean sorted = true;
+        try {
+            while (!writers.stream().allMatch(Future::isDone)) {
+                previousId = 0;
+                for (Order order : orderRepository.findAll()) {
+                    sorted &= order.getId() > previousId;
+                    previousId = order.getId();
+                }
+            }
+        } catch (ConcurrentModificationException e) {
+            throw new AssertionError("findAll must be safe to iterate during concurrent writes", e);
+        }
+        executor.shutdown();
+
+        //THEN
+        assertThat(sorted).isTrue();
+        assertThat(orderRepository.findAll()).hasSize(WRITERS * ORDERS_PER_READ_WRITER);
+    }
+
+    @Test
+    void update_shouldIncrementVersion() {
+        //GIVEN
+        Order order = orderRepository.create(new Order());
+
+        //WHEN
+        orderRepository.update(order);
+        orderRepository.update(order);
+
+        //THEN
+        assertThat(orderRepository.findById(order.getId()).getVersion()).isEqualTo(3L);
+    }
+
+    @Test
+    void update_shouldKeepIndexInLineWithStoredOrder_whenSameOrderIsUpdatedConcurrently() throws Exception {
+        //GIVEN
+        Long id = orderRepository.create(new Order()).getId();
+        OrderState[] states = {OrderState.ASSIGNED, OrderState.CANCELLED, OrderState.COMPLETED, OrderState.UNSCHEDULED};
+        ExecutorService executor = Executors.newFixedThreadPool(states.length);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (OrderState state : states) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ORDERS_PER_WRITER; i++) {
+                    Order copy = new Order();
+                    copy.setId(id);
+                    copy.setState(state);
+                    orderRepository.update(copy);
+                }
+                return null;
+            }));
+        }
+
+        //WHEN
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //THEN
+        OrderState storedState = orderRepository.findById(id).getState();
+        for (OrderState state : OrderState.values()) {
+            assertThat(orderRepository.countByState(state)).as(state.name()).isEqualTo(state == storedState ? 1 : 0);
+        }
+    }
+
+    @Test
+    void findConflictingOrders_shouldReturnOverlappingAssignedOrders() {
+        //GIVEN
+        Order existingOrder1 = assignedOrder(5L, "2020-06-01", "10:00:00", "Europe/Berlin", 1);
+        Order existingOrder2 = assignedOrder(5L, "2020-06-01", "12:00:00", "Europe/Berlin", 1);
+        Order otherPhotographersOrder = assignedOrder(6L, "2020-06-01", "10:30:00", "Europe/Berlin", 1);
+        Order order = unassignedOrder("2020-06-01", "10:30:00", "Europe/Berlin", 1);
+
+        //WHEN
+        List<Order> actual = orderRepository.findConflictingOrders(5L, order.getDateTime(), order.getEndDateTime());
+
+        //THEN
+        assertThat(actual).containsExactly(existingOrder1);
+        assertThat(actual).doesNotContain(existingOrder2, otherPhotographersOrder);
+    }
+
+    @Test
+    void findConflictingOrders_shouldReturnOverlappingOrders_whenConflictIsBecauseOfDuration() {
+        //GIVEN
+        Order existingOrder1 = assignedOrder(5L, "2020-06-01", "11:00:00", "Europe/Berlin", 1);
+        Order existingOrder2 = assignedOrder(5L, "2020-06-01", "12:00:00", "Europe/Berlin", 1);
+        Order longExistingOrder = assignedOrder(5L, "2020-06-01", "05:00:00", "Europe/Berlin", 5);
+        Order order = unassignedOrder("2020-06-01", "09:30:00", "Europe/Berlin", 3);
+
+        //WHEN
+        List<Order> actual = orderRepository.findConflictingOrders(5L, order.getDateTime(), order.getEndDateTime());
+
+        //THEN
+        assertThat(actual).containsExactlyInAnyOrder(existingOrder1, existingOrder2, longExistingOrder);
+    }
+
+    @Test
+    void findConflictingOrders_shouldReturnNothing_whenOrdersAreInDifferentTimezones() {
+        //GIVEN
+        assignedOrder(5L, "2020-06-01", "11:00:00", "Europe/Berlin", 1);
+        assignedOrder(5L, "2020-06-01", "12:00:00", "Europe/Berlin", 1);
+        Order order = unassignedOrder("2020-06-01", "10:30:00", "America/Los_Angeles", 1);
+
+        //WHEN
+        List<Order> actual = orderRepository.findConflictingOrders(5L, order.getDateTime(), order.getEndDateTime());
+
+        //THEN
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void findConflictingOrders_shouldIgnoreOrder_whenItIsNoLongerAssigned() {
+        //GIVEN
+        Order existingOrder = assignedOrder(5L, "2020-06-01", "10:00:00", "Europe/Berlin", 1);
+        existingOrder.setState(OrderState.CANCELLED);
+        orderRepository.update(existingOrder);
+        Order order = unassignedOrder("2020-06-01", "10:00:00", "Europe/Berlin", 1);
+
+        //WHEN
+        List<Order> actual = orderRepository.findConflictingOrders(5L, order.getDateTime(), order.getEndDateTime());
+
+        //THEN
+        assertThat(actual).isEmpty();
+    }
+
+    @Test
+    void findAll_shouldReturnOrdersInRequestedState_whenFilteredByState() {
+        //GIVEN
+        Order pendingOrder = orderRepository.create(unassignedOrder("2020-06-01", "10:00:00", "Europe/Berlin", 1));
+        Order assignedOrder = assignedOrder(5L, "2020-06-01", "11:00:00", "Europe/Berlin", 1);
+        Order cancelledOrder = orderRepository.create(unassignedOrder("2020-06-01", "12:00:00", "Europe/Berlin", 1));
+        cancelledOrder.setState(OrderState.CANCELLED);
+        orderRepository.update(cancelledOrder);
+
+        OrderFilter filter = new OrderFilter();
+        filter.setState(OrderState.PENDING);
+
+        //WHEN
+        List<Order> actual = orderRepository.findAll(filter, null, 100);
+
+        //THEN
+        assertThat(actual).containsExactly(pendingOrder);
+        assertThat(actual).doesNotContain(assignedOrder, cancelledOrder);
+    }
+
+    @Test
+    void findAll_shouldCombineFilters_whenFilteredByPhotographerStateAndPhotoType() {
+        //GIVEN
+        Order foodOrder = assignedOrder(5L, "2020-06-01", "10:00:00", "Europe/Berlin", 1);
+        foodOrder.setPhotoType(PhotoType.Food);
+        orderRepository.update(foodOrder);
+        Order eventOrder = assignedOrder(5L, "2020-06-01", "12:00:00", "Europe/Berlin", 1);
+        eventOrder.setPhotoType(PhotoType.Events);
+        orderRepository.update(eventOrder);
+        Order otherPhotographersOrder = assignedOrder(6L, "2020-06-01", "10:00:00", "Europe/Berlin", 1);
+        otherPhotographersOrder.setPhotoType(PhotoType.Food);
+        orderRepository.update(otherPhotographersOrder);
+
+        OrderFilter filter = new OrderFilter();
+        filter.setPhotographerId(5L);
+        filter.setState(OrderState.ASSIGNED);
+        filter.setPhotoType(PhotoType.Food);
+
+        //WHEN
+        List<Order> actual = orderRepository.findAll(filter, null, 100);
+
+        //THEN
+        assertThat(actual).containsExactly(foodOrder);
+    }
+
+    @Test
+    void findAll_shouldReturnOrdersAfterGivenId_whenPaginated() {
+        //GIVEN
+        for (int i = 0; i < 10; i++) {
+            orderRepository.create(unassignedOrder("2020-06-01", "10:00:00", "Europe/Berlin", 1));
+        }
+
+        //WHEN
+        List<Order> actual = orderRepository.findAll(new OrderFilter(), 4L, 3);
+
+        //THEN
+        assertThat(actual).extracting(Order::getId).containsExactly(5L, 6L, 7L);
+    }
+
+    @Test
+    void createAll_shouldAllocateConsecutiveIdsAndIndexOrders() {
+        //GIVEN
+        orderRepository.create(unassignedOrder("2020-06-01", "10:00:00", "Europe/Berlin", 1));
+        List<Order> batch = List.of(
+                unassignedOrder("2020-06-01", "11:00:00", "Europe/Berlin", 1),
+                unassignedOrder("2020-06-01", "12:00:00", "Europe/Berlin", 1),
+                unassignedOrder("2020-06-01", "13:00:00", "Europe/Berlin", 1));
+
+        //WHEN
+        orderRepository.createAll(batch);
+
+        //THEN
+        assertThat(batch).extracting(Order::getId).containsExactly(2L, 3L, 4L);
+        assertThat(orderRepository.create(new Order()).getId()).isEqualTo(5L);
+        OrderFilter filter = new OrderFilter();
+        filter.setState(OrderState.PENDING);
+        assertThat(orderRepository.findAll(filter, 1L, 100)).containsExactlyElementsOf(batch);
+    }
+
+    @Test
+    void findLeastLoadedAvailablePhotographer_shouldPickFreePhotographerWithFewestOrders() {
+        //GIVEN
+        assignedOrder(1L, "2020-06-01", "12:00:00", "Europe/Berlin", 1);
+        assignedOrder(1L, "2020-06-01", "14:00:00", "Europe/Berlin", 1);
+        assignedOrder(2L, "2020-06-01", "16:00:00", "Europe/Berlin", 1);
+        assignedOrder(3L, "2020-06-01", "09:00:00", "Europe/Berlin", 2);
+        assignedOrder(4L, "2020-06-02", "10:00:00", "Europe/Berlin", 1);
+        Order order = unassignedOrder("2020-06-01", "10:00:00", "Europe/Berlin", 1);
+
+        //WHEN
+        Long actual = orderRepository.findLeastLoadedAvailablePhotographer(List.of(1L, 2L, 3L, 4L),
+                order.getDateTime(), order.getEndDateTime());
+
+        //THEN
+        assertThat(actual).isEqualTo(2L);
+        assertThat(orderRepository.findLeastLoadedAvailablePhotographer(List.of(1L, 3L, 5L),
+                order.getDateTime(), order.getEndDateTime())).isEqualTo(5L);
+    }
+
+    @Test
+    void findLeastLoadedAvailablePhotographer_shouldReturnNull_whenEveryPhotographerIsBusy() {
+        //GIVEN
+        assignedOrder(1L, "2020-06-01", "09:30:00", "Europe/Berlin", 1);
+        assignedOrder(2L, "2020-06-01", "10:59:00", "Europe/Berlin", 1);
+        Order order = unassignedOrder("2020-06-01", "10:00:00", "Europe/Berlin", 1);
+
+        //WHEN
+        Long actual = orderRepository.findLeastLoadedAvailablePhotographer(List.of(1L, 2L),
+                order.getDateTime(), order.getEndDateTime());
+
+        //THEN
+        assertThat(actual).isNull();
+    }
+
+    private Order assignedOrder(Long photographerId, String date, String time, String timezone, int durationInHours) {
+        Order order = orderRepository.create(unassignedOrder(date, time, timezone, durationInHours));
+        order.setPhotographerId(photographerId);
+        order.setState(OrderState.ASSIGNED);
+        return orderRepository.update(order);
+    }
+
+    private static Order unassignedOrder(String date, String time, String timezone, int durationInHours) {
+        Order order = new Order();
+        order.setState(OrderState.PENDING);
+        order.setDate(LocalDate.parse(date));
+        order.setTime(LocalTime.parse(time));
+        order.setTimezone(TimeZone.getTimeZone(timezone));
+        order.setDurationInHours(durationInHours);
+        return order;
+    }
+}
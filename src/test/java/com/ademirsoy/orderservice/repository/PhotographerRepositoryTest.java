@@ -0,0 +1,55 @@
+package com.ademirsoy.orderservice.repository;
+
+import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhotographerRepositoryTest {
+
+    private static final int WRITERS = 64;
+    private static final int PHOTOGRAPHERS_PER_WRITER = 1_000;
+
+    PhotographerRepository photographerRepository = new PhotographerRepository(new NoOpJournal());
+
+    @Test
+    void create_shouldAllocateUniqueIds_whenCalledByConcurrentWriters() throws Exception {
+        //GIVEN
+        ExecutorService executor = Executors.newFixedThreadPool(WRITERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> results = new ArrayList<>();
+        for (int i = 0; i < WRITERS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                List<Long> ids = new ArrayList<>();
+                for (int j = 0; j < PHOTOGRAPHERS_PER_WRITER; j++) {
+                    ids.add(photographerRepository.create(new Photographer()).getId());
+                }
+                return ids;
+            }));
+        }
+
+        //WHEN
+        start.countDown();
+        List<Long> allocatedIds = new ArrayList<>();
+        for (Future<List<Long>> result : results) {
+            allocatedIds.addAll(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        //THEN
+        assertThat(allocatedIds).hasSize(WRITERS * PHOTOGRAPHERS_PER_WRITER);
+        assertThat(new HashSet<>(allocatedIds)).hasSize(WRITERS * PHOTOGRAPHERS_PER_WRITER);
+        allocatedIds.forEach(id -> assertThat(photographerRepository.findById(id)).isNotNull());
+    }
+}
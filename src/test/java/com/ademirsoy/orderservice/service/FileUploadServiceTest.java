@@ -1,14 +1,29 @@
 package com.ademirsoy.orderservice.service;
 
 import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.model.ArchiveEntry;
+import com.ademirsoy.orderservice.model.ArchiveManifest;
+import com.ademirsoy.orderservice.storage.PhotoStorage;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Arrays;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
 class FileUploadServiceTest {
@@ -16,6 +31,9 @@ class FileUploadServiceTest {
     @InjectMocks
     FileUploadService fileUploadService;
 
+    @Mock
+    PhotoStorage photoStorage;
+
     @Test
     void uploadFile_shouldThrowException_whenInvalidFileExtension() {
 
@@ -23,22 +41,68 @@ class FileUploadServiceTest {
         MockMultipartFile mockFile = new MockMultipartFile("filename", "filename", "image/png", "file".getBytes());
 
         //WHEN
-        BadRequestException e = assertThrows(BadRequestException.class, () -> fileUploadService.uploadFile(mockFile));
+        BadRequestException e = assertThrows(BadRequestException.class, () -> fileUploadService.uploadFile(5L, mockFile));
 
         //THEN
         assertThat(e.getMessage()).isEqualTo("Only zip files are allowed");
     }
 
     @Test
-    void uploadFile_shouldReturnFileName_whenValidRequest() {
+    void uploadFile_shouldReturnManifest_whenValidRequest() throws Exception {
 
         //GIVEN
-        MockMultipartFile mockFile = new MockMultipartFile("filename", "filename", "application/zip", "file".getBytes());
+        byte[] archive = zip("photo.jpg", "jpeg".getBytes(), "notes.txt", "notes".getBytes());
+        MockMultipartFile mockFile = new MockMultipartFile("filename", "filename", "application/zip", archive);
+        when(photoStorage.store(eq(5L), eq("filename"), any(ReadableByteChannel.class))).thenAnswer(invocation -> {
+            drain(invocation.getArgument(2));
+            return "5/filename";
+        });
 
         //WHEN
-        String actual = fileUploadService.uploadFile(mockFile);
+        ArchiveManifest actual = fileUploadService.uploadFile(5L, mockFile);
 
         //THEN
-        assertThat(actual).isEqualTo("filename");
+        assertThat(actual.getFile()).isEqualTo("5/filename");
+        assertThat(actual.getImageCount()).isEqualTo(1);
+        assertThat(actual.getTotalSize()).isEqualTo(9);
+        assertThat(actual.getEntries()).extracting(ArchiveEntry::getName).containsExactly("photo.jpg", "notes.txt");
+    }
+
+    @Test
+    void uploadFile_shouldThrowException_whenArchiveIsCorrupt() throws Exception {
+
+        //GIVEN
+        byte[] archive = zip("photo.jpg", "jpeg".getBytes());
+        MockMultipartFile mockFile = new MockMultipartFile("filename", "filename", "application/zip",
+                Arrays.copyOf(archive, archive.length / 2));
+        when(photoStorage.store(eq(5L), eq("filename"), any(ReadableByteChannel.class))).thenAnswer(invocation -> {
+            drain(invocation.getArgument(2));
+            return "5/filename";
+        });
+
+        //WHEN
+        BadRequestException e = assertThrows(BadRequestException.class, () -> fileUploadService.uploadFile(5L, mockFile));
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("Invalid zip file: Archive is truncated");
+    }
+
+    private static byte[] zip(Object... namesAndContents) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                out.putNextEntry(new ZipEntry((String) namesAndContents[i]));
+                out.write((byte[]) namesAndContents[i + 1]);
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void drain(ReadableByteChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(1024);
+        while (channel.read(buffer) >= 0) {
+            buffer.clear();
+        }
     }
 }
@@ -0,0 +1,143 @@
+package com.ademirsoy.orderservice.service;
+
+import com.ademirsoy.orderservice.exception.ServiceUnavailableException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
+import com.ademirsoy.orderservice.model.response.OrderEvent;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class OrderEventPublisherTest {
+
+    OrderEventPublisher publisher = new OrderEventPublisher(4, 2);
+
+    @AfterEach
+    void tearDown() {
+        publisher.shutdown();
+    }
+
+    @Test
+    void publish_shouldDeliverMatchingEventsInOrder() throws Exception {
+        //GIVEN
+        OrderFilter filter = new OrderFilter();
+        filter.setPhotographerId(3L);
+        BlockingQueue<OrderEvent> received = new LinkedBlockingQueue<>();
+        publisher.subscribe(filter, received::add, () -> {
+        });
+
+        //WHEN
+        publisher.publish(order(1L, 3L, OrderState.ASSIGNED), OrderState.PENDING);
+        publisher.publish(order(2L, 4L, OrderState.ASSIGNED), OrderState.PENDING);
+        publisher.publish(order(1L, 3L, OrderState.UPLOADED), OrderState.ASSIGNED);
+
+        //THEN
+        OrderEvent first = received.poll(5, TimeUnit.SECONDS);
+        OrderEvent second = received.poll(5, TimeUnit.SECONDS);
+        assertThat(List.of(first.getState(), second.getState())).containsExactly(OrderState.ASSIGNED, OrderState.UPLOADED);
+        assertThat(second.getOrderId()).isEqualTo(1L);
+        assertThat(second.getPreviousState()).isEqualTo(OrderState.ASSIGNED);
+        assertThat(second.getId()).isGreaterThan(first.getId());
+        assertThat(received.poll(100, TimeUnit.MILLISECONDS)).isNull();
+    }
+
+    @Test
+    void publish_shouldCloseSubscriber_whenItFallsBehind() throws Exception {
+        //GIVEN
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch closed = new CountDownLatch(1);
+        publisher.subscribe(null, event -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, closed::countDown);
+
+        //WHEN
+        for (long id = 1; id <= 10; id++) {
+            publisher.publish(order(id, 3L, OrderState.PENDING), null);
+        }
+
+        //THEN
+        assertThat(closed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(publisher.countSubscribers()).isZero();
+        release.countDown();
+    }
+
+    @Test
+    void subscribe_shouldThrowException_whenTooManySubscribers() {
+        //GIVEN
+        publisher.subscribe(null, event -> {
+        }, () -> {
+        });
+        OrderEventPublisher.Subscription subscription = publisher.subscribe(null, event -> {
+        }, () -> {
+        });
+
+        //WHEN
+        ServiceUnavailableException ex = assertThrows(ServiceUnavailableException.class, () -> publisher.subscribe(null, event -> {
+        }, () -> {
+        }));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("Too many event subscribers, please retry later");
+        subscription.close();
+        assertThat(publisher.countSubscribers()).isEqualTo(1);
+    }
+
+    @Test
+    void subscribe_shouldNotExceedLimit_whenSubscribersArriveConcurrently() throws Exception {
+        //GIVEN
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < 16; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    publisher.subscribe(null, event -> {
+                    }, () -> {
+                    });
+                    return true;
+                } catch (ServiceUnavailableException e) {
+                    return false;
+                }
+            }));
+        }
+
+        //WHEN
+        start.countDown();
+        List<Boolean> subscribed = new ArrayList<>();
+        for (Future<Boolean> result : results) {
+            subscribed.add(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        //THEN
+        assertThat(subscribed).filteredOn(Boolean::booleanValue).hasSize(2);
+        assertThat(publisher.countSubscribers()).isEqualTo(2);
+    }
+
+    private static Order order(Long id, Long photographerId, OrderState state) {
+        Order order = new Order();
+        order.setId(id);
+        order.setPhotographerId(photographerId);
+        order.setState(state);
+        order.setVersion(1L);
+        return order;
+    }
+}
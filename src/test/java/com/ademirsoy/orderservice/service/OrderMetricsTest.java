@@ -0,0 +1,64 @@
+package com.ademirsoy.orderservice.service;
+
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.service.OrderMetrics.Transition;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OrderMetricsTest {
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    OrderRepository orderRepository = new OrderRepository(new NoOpJournal());
+    OrderMetrics orderMetrics = new OrderMetrics(meterRegistry, orderRepository);
+
+    @Test
+    void orderGauges_shouldFollowStateChanges() {
+        //GIVEN
+        Order first = new Order();
+        first.setState(OrderState.PENDING);
+        Order second = new Order();
+        second.setState(OrderState.PENDING);
+        orderRepository.create(first);
+        orderRepository.create(second);
+
+        //WHEN
+        second.setState(OrderState.CANCELLED);
+        orderRepository.update(second);
+
+        //THEN
+        assertThat(meterRegistry.get("order-service.orders").tag("state", "PENDING").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("order-service.orders").tag("state", "CANCELLED").gauge().value()).isEqualTo(1);
+        assertThat(meterRegistry.get("order-service.orders").tag("state", "ASSIGNED").gauge().value()).isEqualTo(0);
+    }
+
+    @Test
+    void recordTransition_shouldSeparateOutcomes() {
+        //WHEN
+        orderMetrics.recordTransition(Transition.AUTO_ASSIGN, TimeUnit.MILLISECONDS.toNanos(2), true);
+        orderMetrics.recordTransition(Transition.AUTO_ASSIGN, TimeUnit.MILLISECONDS.toNanos(3), false);
+        orderMetrics.recordTransition(Transition.AUTO_ASSIGN, TimeUnit.MILLISECONDS.toNanos(4), false);
+
+        //THEN
+        assertThat(meterRegistry.get("order-service.order.transition")
+                .tags("transition", "auto_assign", "outcome", "succeeded").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("order-service.order.transition")
+                .tags("transition", "auto_assign", "outcome", "failed").timer().totalTime(TimeUnit.MILLISECONDS)).isEqualTo(7);
+    }
+
+    @Test
+    void recordConflictCheck_shouldRecordLatencyAndCandidates() {
+        //WHEN
+        orderMetrics.recordConflictCheck(TimeUnit.MICROSECONDS.toNanos(5), 12);
+
+        //THEN
+        assertThat(meterRegistry.get("order-service.conflict-check").timer().count()).isEqualTo(1);
+        assertThat(meterRegistry.get("order-service.conflict-check.candidates").summary().totalAmount()).isEqualTo(12);
+    }
+}
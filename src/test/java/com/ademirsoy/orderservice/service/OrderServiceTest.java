@@ -1,12 +1,25 @@
 package com.ademirsoy.orderservice.service;
 
+import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.exception.ConflictingOrderException;
 import com.ademirsoy.orderservice.exception.InvalidOrderStateException;
+import com.ademirsoy.orderservice.exception.PreconditionFailedException;
+import com.ademirsoy.orderservice.model.ArchiveEntry;
+import com.ademirsoy.orderservice.model.ArchiveManifest;
 import com.ademirsoy.orderservice.model.Order;
 import com.ademirsoy.orderservice.model.OrderState;
 import com.ademirsoy.orderservice.model.Photographer;
 import com.ademirsoy.orderservice.model.request.AssignOrderRequest;
+import com.ademirsoy.orderservice.model.request.BulkTransitionRequest;
+import com.ademirsoy.orderservice.model.request.OrderFilter;
 import com.ademirsoy.orderservice.model.request.ScheduleOrderRequest;
+import com.ademirsoy.orderservice.model.response.BulkItemResult;
+import com.ademirsoy.orderservice.model.response.BulkResult;
+import com.ademirsoy.orderservice.model.response.OrderPage;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
 import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.repository.PhotographerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -17,10 +30,29 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.mock.web.MockMultipartFile;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -38,6 +70,10 @@ public class OrderServiceTest {
     OrderValidator orderValidator;
     @Mock
     FileUploadService fileUploadService;
+    @Mock
+    OrderMetrics orderMetrics;
+    @Mock
+    OrderEventPublisher orderEventPublisher;
 
     @Captor
     ArgumentCaptor<Order> orderCaptor;
@@ -157,6 +193,146 @@ public class OrderServiceTest {
         assertThat(ex.getMessage()).isEqualTo("Only PENDING orders can be assigned! Current order state: UNSCHEDULED");
     }
 
+    @Test
+    void createAll_shouldReportEachItem_whenSomeOrdersAreInvalid() {
+        //GIVEN
+        Order validOrder = new Order();
+        validOrder.setTitle("valid");
+        Order invalidOrder = new Order();
+        invalidOrder.setTitle("invalid");
+        Order scheduledOrder = new Order();
+        scheduledOrder.setDate(LocalDate.parse("2020-06-01"));
+        scheduledOrder.setTime(LocalTime.parse("09:30:00"));
+        doAnswer(invocation -> {
+            if (invocation.getArgument(0) == invalidOrder) {
+                throw new BadRequestException("contact field is mandatory!");
+            }
+            return null;
+        }).when(orderValidator).validateCreate(any(Order.class));
+        when(orderRepository.createAll(List.of(validOrder, scheduledOrder))).thenAnswer(invocation -> {
+            validOrder.setId(1L);
+            scheduledOrder.setId(2L);
+            return invocation.getArgument(0);
+        });
+
+        //WHEN
+        BulkResult actual = orderService.createAll(Arrays.asList(validOrder, invalidOrder, null, scheduledOrder));
+
+        //THEN
+        assertThat(actual.getSucceeded()).isEqualTo(2);
+        assertThat(actual.getFailed()).isEqualTo(2);
+        assertThat(actual.getResults()).containsExactly(
+                BulkItemResult.succeeded(0, 1L),
+                BulkItemResult.failed(1, null, "contact field is mandatory!"),
+                BulkItemResult.failed(2, null, "Order is empty!"),
+                BulkItemResult.succeeded(3, 2L));
+        assertThat(validOrder.getState()).isEqualTo(OrderState.UNSCHEDULED);
+        assertThat(scheduledOrder.getState()).isEqualTo(OrderState.PENDING);
+    }
+
+    @Test
+    void transitionAll_shouldReportEachOrder_whenSomeTransitionsAreInvalid() {
+        //GIVEN
+        Order uploadedOrder = new Order();
+        uploadedOrder.setId(1L);
+        uploadedOrder.setState(OrderState.UPLOADED);
+        Order pendingOrder = new Order();
+        pendingOrder.setId(2L);
+        pendingOrder.setState(OrderState.PENDING);
+        when(orderRepository.findById(1L)).thenReturn(uploadedOrder);
+        when(orderRepository.findById(2L)).thenReturn(pendingOrder);
+        when(orderRepository.findById(3L)).thenReturn(null);
+
+        BulkTransitionRequest request = new BulkTransitionRequest();
+        request.setAction(BulkTransitionRequest.Action.COMPLETE);
+        request.setOrderIds(Arrays.asList(1L, 2L, 3L, 1L, null));
+
+        //WHEN
+        BulkResult actual = orderService.transitionAll(request);
+
+        //THEN
+        assertThat(actual.getSucceeded()).isEqualTo(1);
+        assertThat(actual.getResults()).containsExactly(
+                BulkItemResult.succeeded(0, 1L),
+                BulkItemResult.failed(1, 2L, "Only UPLOADED orders can be completed! Current order state: PENDING"),
+                BulkItemResult.failed(2, 3L, "Order with the following ID not found: 3"),
+                BulkItemResult.failed(3, 1L, "Duplicate order ID in request: 1"),
+                BulkItemResult.failed(4, null, "Order ID is empty!"));
+        assertThat(uploadedOrder.getState()).isEqualTo(OrderState.COMPLETED);
+        verify(orderRepository).update(uploadedOrder);
+    }
+
+    @Test
+    void transitionAll_shouldAssignOrders_whenPhotographerIsAvailable() {
+        //GIVEN
+        Photographer photographer = new Photographer();
+        photographer.setId(7L);
+        when(photographerService.retrieve(7L)).thenReturn(photographer);
+        Order pendingOrder = new Order();
+        pendingOrder.setId(1L);
+        pendingOrder.setState(OrderState.PENDING);
+        when(orderRepository.findById(1L)).thenReturn(pendingOrder);
+
+        BulkTransitionRequest request = new BulkTransitionRequest();
+        request.setAction(BulkTransitionRequest.Action.ASSIGN);
+        request.setPhotographerId(7L);
+        request.setOrderIds(List.of(1L));
+
+        //WHEN
+        BulkResult actual = orderService.transitionAll(request);
+
+        //THEN
+        assertThat(actual.getResults()).containsExactly(BulkItemResult.succeeded(0, 1L));
+        verify(orderValidator).checkConflictingOrders(7L, pendingOrder);
+        assertThat(pendingOrder.getState()).isEqualTo(OrderState.ASSIGNED);
+        assertThat(pendingOrder.getPhotographerId()).isEqualTo(7L);
+    }
+
+    @Test
+    void autoAssign_shouldAssignSelectedPhotographer_whenOnePhotographerIsAvailable() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(5L);
+        order.setState(OrderState.PENDING);
+        order.setDate(LocalDate.parse("2020-06-01"));
+        order.setTime(LocalTime.parse("10:00:00"));
+        Photographer photographer = new Photographer();
+        photographer.setId(7L);
+        when(orderRepository.findById(5L)).thenReturn(order);
+        when(photographerService.retrieveAll()).thenReturn(List.of(photographer));
+        when(orderRepository.findLeastLoadedAvailablePhotographer(any(), eq(order.getDateTime()), eq(order.getEndDateTime())))
+                .thenReturn(7L);
+
+        //WHEN
+        orderService.autoAssign(5L);
+
+        //THEN
+        verify(orderRepository).update(orderCaptor.capture());
+        assertThat(orderCaptor.getValue().getState()).isEqualTo(OrderState.ASSIGNED);
+        assertThat(orderCaptor.getValue().getPhotographerId()).isEqualTo(7L);
+    }
+
+    @Test
+    void autoAssign_shouldThrowException_whenNoPhotographerIsAvailable() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(5L);
+        order.setState(OrderState.PENDING);
+        order.setDate(LocalDate.parse("2020-06-01"));
+        order.setTime(LocalTime.parse("10:00:00"));
+        when(orderRepository.findById(5L)).thenReturn(order);
+        when(photographerService.retrieveAll()).thenReturn(Collections.emptyList());
+        when(orderRepository.findLeastLoadedAvailablePhotographer(any(), eq(order.getDateTime()), eq(order.getEndDateTime())))
+                .thenReturn(null);
+
+        //WHEN
+        ConflictingOrderException ex = Assertions.assertThrows(ConflictingOrderException.class,
+                () -> orderService.autoAssign(5L));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("No photographer is available at the requested date and time!");
+    }
+
     @Test
     void upload_shouldSetUploadedState_whenRequestIsValid() {
         //GIVEN
@@ -170,7 +346,8 @@ public class OrderServiceTest {
         MockMultipartFile mockFile = new MockMultipartFile("filename", "file".getBytes());
 
         when(orderRepository.findById(order.getId())).thenReturn(order);;
-        when(fileUploadService.uploadFile(mockFile)).thenReturn("filename");
+        ArchiveManifest manifest = ArchiveManifest.of("filename", List.of(new ArchiveEntry("photo.jpg", 4, 4, 1)));
+        when(fileUploadService.uploadFile(order.getId(), mockFile)).thenReturn(manifest);
 
         //WHEN
         orderService.upload(order.getId(), mockFile);
@@ -180,6 +357,7 @@ public class OrderServiceTest {
         assertThat(orderCaptor.getValue().getState()).isEqualTo(OrderState.UPLOADED);
         assertThat(orderCaptor.getValue().getFiles()).hasSize(1);
         assertThat(orderCaptor.getValue().getFiles().get(0)).isEqualTo("filename");
+        assertThat(orderCaptor.getValue().getManifests()).containsExactly(manifest);
     }
 
     @Test
@@ -200,6 +378,26 @@ public class OrderServiceTest {
         assertThat(ex.getMessage()).isEqualTo("Upload is possible Only for ASSIGNED orders! Current order state: COMPLETED");
     }
 
+    @Test
+    void upload_shouldThrowExceptionBeforeStoringFile_whenVersionDoesNotMatch() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(5L);
+        order.setState(OrderState.ASSIGNED);
+        order.setVersion(4L);
+        MockMultipartFile mockFile = new MockMultipartFile("filename", "filename".getBytes());
+
+        when(orderRepository.findById(order.getId())).thenReturn(order);
+
+        //WHEN
+        PreconditionFailedException ex = Assertions.assertThrows(PreconditionFailedException.class,
+                () -> orderService.upload(order.getId(), mockFile, 3L));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("Order has been modified! Current version: 4");
+        verify(fileUploadService, never()).uploadFile(any(), any(MockMultipartFile.class));
+    }
+
     @Test
     void complete_shouldSetCompletedState_whenRequestIsValid() {
         //GIVEN
@@ -234,6 +432,44 @@ public class OrderServiceTest {
         assertThat(ex.getMessage()).isEqualTo("Only UPLOADED orders can be completed! Current order state: PENDING");
     }
 
+    @Test
+    void complete_shouldThrowException_whenVersionDoesNotMatch() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(5L);
+        order.setState(OrderState.UPLOADED);
+        order.setVersion(4L);
+
+        when(orderRepository.findById(order.getId())).thenReturn(order);
+
+        //WHEN
+        PreconditionFailedException ex = Assertions.assertThrows(PreconditionFailedException.class,
+                () -> orderService.complete(order.getId(), 3L));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("Order has been modified! Current version: 4");
+        assertThat(order.getState()).isEqualTo(OrderState.UPLOADED);
+        verify(orderEventPublisher, never()).publish(any(), any());
+    }
+
+    @Test
+    void complete_shouldPublishEvent_whenOrderCompleted() {
+        //GIVEN
+        Order order = new Order();
+        order.setId(5L);
+        order.setState(OrderState.UPLOADED);
+
+        when(orderRepository.findById(order.getId())).thenReturn(order);
+        when(orderRepository.update(order)).thenReturn(order);
+
+        //WHEN
+        orderService.complete(order.getId());
+
+        //THEN
+        verify(orderEventPublisher).publish(orderCaptor.capture(), eq(OrderState.UPLOADED));
+        assertThat(orderCaptor.getValue().getState()).isEqualTo(OrderState.COMPLETED);
+    }
+
     @Test
     void reject_shouldSetAssignedState_whenRequestIsValid() {
         //GIVEN
@@ -267,4 +503,179 @@ public class OrderServiceTest {
         //THEN
         assertThat(ex.getMessage()).isEqualTo("Only UPLOADED orders can be rejected! Current order state: CANCELLED");
     }
+
+    @Test
+    void retrievePage_shouldReturnNextCursor_whenMoreOrdersExist() {
+        //GIVEN
+        OrderFilter filter = new OrderFilter();
+        List<Order> orders = LongStream.rangeClosed(1, 3).mapToObj(id -> {
+            Order order = new Order();
+            order.setId(id);
+            return order;
+        }).collect(Collectors.toList());
+
+        when(orderRepository.findAll(filter, null, 3)).thenReturn(orders);
+
+        //WHEN
+        OrderPage page = orderService.retrievePage(filter, null, 2);
+
+        //THEN
+        assertThat(page.getOrders()).extracting(Order::getId).containsExactly(1L, 2L);
+        assertThat(OrderService.decodeCursor(page.getNextCursor())).isEqualTo(2L);
+    }
+
+    @Test
+    void retrievePage_shouldNotReturnNextCursor_whenLastPage() {
+        //GIVEN
+        OrderFilter filter = new OrderFilter();
+        Order order = new Order();
+        order.setId(7L);
+
+        when(orderRepository.findAll(filter, 5L, 3)).thenReturn(Collections.singletonList(order));
+
+        //WHEN
+        OrderPage page = orderService.retrievePage(filter, OrderService.encodeCursor(5L), 2);
+
+        //THEN
+        assertThat(page.getOrders()).containsExactly(order);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void retrievePage_shouldThrowException_whenCursorInvalid() {
+        //WHEN
+        BadRequestException ex = Assertions.assertThrows(BadRequestException.class,
+                () -> orderService.retrievePage(new OrderFilter(), "not-a-cursor", 2));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("Invalid cursor: not-a-cursor");
+    }
+
+    @Test
+    void assign_shouldBookPhotographerOnce_whenOverlappingOrdersAreAssignedConcurrently() throws Exception {
+        //GIVEN
+        OrderRepository repository = new OrderRepository(new NoOpJournal());
+        OrderService service = concurrentOrderService(repository, 2);
+        List<Long> orderIds = overlappingOrders(repository, 16);
+
+        //WHEN
+        List<Boolean> assigned = concurrently(orderIds, orderId -> {
+            AssignOrderRequest request = new AssignOrderRequest();
+            request.setPhotographerId(orderId % 2 + 1);
+            service.assign(request, orderId);
+        });
+
+        //THEN
+        assertThat(assigned).filteredOn(Boolean::booleanValue).hasSize(2);
+        assertThat(repository.findConflictingOrders(1L, overlappingDateTime(), overlappingDateTime().plusSeconds(3600))).hasSize(1);
+        assertThat(repository.findConflictingOrders(2L, overlappingDateTime(), overlappingDateTime().plusSeconds(3600))).hasSize(1);
+    }
+
+    @Test
+    void autoAssign_shouldBookEachPhotographerOnce_whenOverlappingOrdersAreAssignedConcurrently() throws Exception {
+        //GIVEN
+        OrderRepository repository = new OrderRepository(new NoOpJournal());
+        OrderService service = concurrentOrderService(repository, 3);
+        List<Long> orderIds = overlappingOrders(repository, 16);
+
+        //WHEN
+        List<Boolean> assigned = concurrently(orderIds, service::autoAssign);
+
+        //THEN
+        assertThat(assigned).filteredOn(Boolean::booleanValue).hasSize(3);
+        assertThat(orderIds.stream().map(repository::findById).filter(order -> order.getPhotographerId() != null))
+                .extracting(Order::getPhotographerId)
+                .containsExactlyInAnyOrder(1L, 2L, 3L);
+    }
+
+    @Test
+    void complete_shouldNotOverwriteConcurrentReject_whenOrderIsChangedConcurrently() throws Exception {
+        //GIVEN
+        OrderRepository repository = new OrderRepository(new NoOpJournal());
+        OrderService service = concurrentOrderService(repository, 0);
+        Order order = new Order();
+        order.setState(OrderState.UPLOADED);
+        Long orderId = repository.create(order).getId();
+        AtomicInteger requests = new AtomicInteger();
+
+        //WHEN
+        List<Boolean> changed = concurrently(Collections.nCopies(16, orderId), id -> {
+            if (requests.incrementAndGet() % 2 == 0) {
+                service.complete(id);
+            } else {
+                service.reject(id);
+            }
+        });
+
+        //THEN
+        assertThat(changed).filteredOn(Boolean::booleanValue).hasSize(1);
+        assertThat(repository.findById(orderId).getVersion()).isEqualTo(2L);
+    }
+
+    @Test
+    void cancel_shouldApplyOnce_whenConcurrentRequestsExpectSameVersion() throws Exception {
+        //GIVEN
+        OrderRepository repository = new OrderRepository(new NoOpJournal());
+        OrderService service = concurrentOrderService(repository, 0);
+        Long orderId = repository.create(new Order()).getId();
+
+        //WHEN
+        List<Boolean> cancelled = concurrently(Collections.nCopies(16, orderId), id -> service.cancel(id, 1L));
+
+        //THEN
+        assertThat(cancelled).filteredOn(Boolean::booleanValue).hasSize(1);
+        assertThat(repository.findById(orderId).getVersion()).isEqualTo(2L);
+    }
+
+    private OrderService concurrentOrderService(OrderRepository repository, int photographers) {
+        PhotographerService service = new PhotographerService(new PhotographerRepository(new NoOpJournal()), repository);
+        for (int i = 0; i < photographers; i++) {
+            Photographer photographer = new Photographer();
+            photographer.setName("photographer " + i);
+            service.create(photographer);
+        }
+        OrderMetrics metrics = new OrderMetrics(new SimpleMeterRegistry(), repository);
+        return new OrderService(repository, service, new OrderValidator(repository, metrics),
+                fileUploadService, metrics, orderEventPublisher);
+    }
+
+    private static List<Long> overlappingOrders(OrderRepository repository, int count) {
+        return LongStream.range(0, count).mapToObj(i -> {
+            Order order = new Order();
+            order.setDate(LocalDate.parse("2021-06-30"));
+            order.setTime(LocalTime.of(10, 0).plusMinutes(i));
+            order.setTimezone(TimeZone.getTimeZone("UTC"));
+            order.setState(OrderState.PENDING);
+            return repository.create(order).getId();
+        }).collect(Collectors.toList());
+    }
+
+    private static Instant overlappingDateTime() {
+        return Instant.parse("2021-06-30T10:00:00Z");
+    }
+
+    //NOTE: all actions are released at once, returns whether each of them succeeded
+    private static List<Boolean> concurrently(List<Long> orderIds, Consumer<Long> action) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(orderIds.size());
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (Long orderId : orderIds) {
+            results.add(executor.submit(() -> {
+                start.await();
+                try {
+                    action.accept(orderId);
+                    return true;
+                } catch (ConflictingOrderException | InvalidOrderStateException | PreconditionFailedException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        List<Boolean> succeeded = new ArrayList<>();
+        for (Future<Boolean> result : results) {
+            succeeded.add(result.get(30, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+        return succeeded;
+    }
 }
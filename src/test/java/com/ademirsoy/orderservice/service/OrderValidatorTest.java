@@ -18,11 +18,12 @@ import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.util.Arrays;
-import java.util.List;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
 import java.util.TimeZone;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +34,8 @@ class OrderValidatorTest {
 
     @Mock
     OrderRepository orderRepository;
+    @Mock
+    OrderMetrics orderMetrics;
 
     @Test
     void validateCreate_shouldValidate_whenOrderIsValid() {
@@ -142,17 +145,13 @@ class OrderValidatorTest {
         order.setDate(LocalDate.parse("2020-06-01"));
         order.setTime(LocalTime.parse("10:30:00"));
 
-        Order existingOrder1 = new Order();
-        existingOrder1.setState(OrderState.ASSIGNED);
-        existingOrder1.setDate(LocalDate.parse("2020-06-01"));
-        existingOrder1.setTime(LocalTime.parse("10:00:00"));
-        Order existingOrder2 = new Order();
-        existingOrder2.setState(OrderState.ASSIGNED);
-        existingOrder2.setDate(LocalDate.parse("2020-06-01"));
-        existingOrder2.setTime(LocalTime.parse("12:00:00"));
+        Order existingOrder = new Order();
+        existingOrder.setState(OrderState.ASSIGNED);
+        existingOrder.setDate(LocalDate.parse("2020-06-01"));
+        existingOrder.setTime(LocalTime.parse("10:00:00"));
 
-        List<Order> existingOrders = Arrays.asList(existingOrder1, existingOrder2);
-        when(orderRepository.findByPhotographer(5L)).thenReturn(existingOrders);
+        when(orderRepository.findConflictingOrders(5L, order.getDateTime(), order.getEndDateTime()))
+                .thenReturn(Collections.singletonList(existingOrder));
 
         //WHEN
         ConflictingOrderException ex = Assertions.assertThrows(ConflictingOrderException.class,
@@ -163,32 +162,19 @@ class OrderValidatorTest {
     }
 
     @Test
-    void checkConflictingOrders_shouldThrowException_whenConflictingOrdersExistBecauseOfDuration() {
+    void checkConflictingOrders_shouldLookUpWholeDuration_whenDurationIsLongerThanAnHour() {
         //GIVEN
         Order order = new Order();
         order.setDate(LocalDate.parse("2020-06-01"));
         order.setTime(LocalTime.parse("09:30:00"));
         order.setDurationInHours(3);
 
-        Order existingOrder1 = new Order();
-        existingOrder1.setState(OrderState.ASSIGNED);
-        existingOrder1.setDate(LocalDate.parse("2020-06-01"));
-        existingOrder1.setTime(LocalTime.parse("11:00:00"));
-        Order existingOrder2 = new Order();
-        existingOrder2.setState(OrderState.ASSIGNED);
-        existingOrder2.setDate(LocalDate.parse("2020-06-01"));
-        existingOrder2.setTime(LocalTime.parse("12:00:00"));
-
-        List<Order> existingOrders = Arrays.asList(existingOrder1, existingOrder2);
-        when(orderRepository.findByPhotographer(5L)).thenReturn(existingOrders);
-
         //WHEN
-        ConflictingOrderException ex = Assertions.assertThrows(ConflictingOrderException.class,
-                () -> orderValidator.checkConflictingOrders(5L, order));
+        orderValidator.checkConflictingOrders(5L, order);
 
         //THEN
-        assertThat(ex.getMessage()).isEqualTo("This photographer is not available at the requested date and time!");
-
+        verify(orderRepository).findConflictingOrders(5L, order.getDateTime(),
+                order.getDateTime().plus(3, ChronoUnit.HOURS));
     }
 
     @Test
@@ -199,19 +185,8 @@ class OrderValidatorTest {
         order.setTime(LocalTime.parse("10:30:00"));
         order.setTimezone(TimeZone.getTimeZone("America/Los_Angeles"));
 
-        Order existingOrder1 = new Order();
-        existingOrder1.setState(OrderState.ASSIGNED);
-        existingOrder1.setDate(LocalDate.parse("2020-06-01"));
-        existingOrder1.setTime(LocalTime.parse("11:00:00"));
-        existingOrder1.setTimezone(TimeZone.getTimeZone("Europe/Berlin"));
-        Order existingOrder2 = new Order();
-        existingOrder2.setState(OrderState.ASSIGNED);
-        existingOrder2.setDate(LocalDate.parse("2020-06-01"));
-        existingOrder2.setTime(LocalTime.parse("12:00:00"));
-        existingOrder2.setTimezone(TimeZone.getTimeZone("Europe/Berlin"));
-
-        List<Order> existingOrders = Arrays.asList(existingOrder1, existingOrder2);
-        when(orderRepository.findByPhotographer(5L)).thenReturn(existingOrders);
+        when(orderRepository.findConflictingOrders(5L, order.getDateTime(), order.getEndDateTime()))
+                .thenReturn(Collections.emptyList());
 
         //WHEN
         Assertions.assertDoesNotThrow(() -> orderValidator.checkConflictingOrders(5L, order));
@@ -0,0 +1,100 @@
+package com.ademirsoy.orderservice.service;
+
+import com.ademirsoy.orderservice.exception.EntityNotFoundException;
+import com.ademirsoy.orderservice.model.Order;
+import com.ademirsoy.orderservice.model.OrderState;
+import com.ademirsoy.orderservice.model.Photographer;
+import com.ademirsoy.orderservice.model.response.Availability;
+import com.ademirsoy.orderservice.model.response.TimeSlot;
+import com.ademirsoy.orderservice.persistence.NoOpJournal;
+import com.ademirsoy.orderservice.repository.OrderRepository;
+import com.ademirsoy.orderservice.repository.PhotographerRepository;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PhotographerServiceTest {
+
+    private static final ZoneId BERLIN = ZoneId.of("Europe/Berlin");
+
+    OrderRepository orderRepository = new OrderRepository(new NoOpJournal());
+    PhotographerService photographerService = new PhotographerService(new PhotographerRepository(new NoOpJournal()), orderRepository);
+
+    @Test
+    void retrieveAvailability_shouldReturnBusinessHoursMinusMergedBookings() {
+        //GIVEN
+        Photographer photographer = photographerService.create(new Photographer());
+        assignedOrder(photographer.getId(), "2021-07-05", "09:00:00", "Europe/Berlin", 2);
+        assignedOrder(photographer.getId(), "2021-07-05", "10:00:00", "Europe/Berlin", 2);
+        assignedOrder(photographer.getId(), "2021-07-05", "15:00:00", "Europe/Berlin", 1);
+        assignedOrder(photographer.getId(), "2021-07-06", "19:00:00", "Europe/Berlin", 3);
+        //NOTE: 06:00 in London is 07:00 in Berlin, the booking ends at 09:00 Berlin time
+        assignedOrder(photographer.getId(), "2021-07-07", "06:00:00", "Europe/London", 2);
+
+        //WHEN
+        Availability actual = photographerService.retrieveAvailability(photographer.getId(),
+                LocalDate.parse("2021-07-05"), LocalDate.parse("2021-07-07"), BERLIN);
+
+        //THEN
+        assertThat(actual.getTimezone()).isEqualTo("Europe/Berlin");
+        assertThat(actual.getFreeSlots()).containsExactly(
+                slot("2021-07-05T08:00", "2021-07-05T09:00"),
+                slot("2021-07-05T12:00", "2021-07-05T15:00"),
+                slot("2021-07-05T16:00", "2021-07-05T20:00"),
+                slot("2021-07-06T08:00", "2021-07-06T19:00"),
+                slot("2021-07-07T09:00", "2021-07-07T20:00"));
+    }
+
+    @Test
+    void retrieveAvailability_shouldIgnoreOrdersThatAreNotAssigned() {
+        //GIVEN
+        Photographer photographer = photographerService.create(new Photographer());
+        Order cancelledOrder = assignedOrder(photographer.getId(), "2021-07-05", "09:00:00", "Europe/Berlin", 2);
+        cancelledOrder.setState(OrderState.CANCELLED);
+        orderRepository.update(cancelledOrder);
+
+        //WHEN
+        Availability actual = photographerService.retrieveAvailability(photographer.getId(),
+                LocalDate.parse("2021-07-05"), LocalDate.parse("2021-07-05"), BERLIN);
+
+        //THEN
+        assertThat(actual.getFreeSlots()).containsExactly(slot("2021-07-05T08:00", "2021-07-05T20:00"));
+    }
+
+    @Test
+    void retrieveAvailability_shouldThrowException_whenPhotographerDoesNotExist() {
+        //WHEN
+        EntityNotFoundException ex = Assertions.assertThrows(EntityNotFoundException.class,
+                () -> photographerService.retrieveAvailability(42L, LocalDate.parse("2021-07-05"), LocalDate.parse("2021-07-05"), BERLIN));
+
+        //THEN
+        assertThat(ex.getMessage()).isEqualTo("Photographer with the following ID not found: 42");
+    }
+
+    private Order assignedOrder(Long photographerId, String date, String time, String timezone, int durationInHours) {
+        Order order = new Order();
+        order.setDate(LocalDate.parse(date));
+        order.setTime(LocalTime.parse(time));
+        order.setTimezone(TimeZone.getTimeZone(timezone));
+        order.setDurationInHours(durationInHours);
+        order.setPhotographerId(photographerId);
+        order.setState(OrderState.ASSIGNED);
+        return orderRepository.create(order);
+    }
+
+    private static TimeSlot slot(String start, String end) {
+        return new TimeSlot(toOffsetDateTime(start), toOffsetDateTime(end));
+    }
+
+    private static OffsetDateTime toOffsetDateTime(String localDateTime) {
+        return LocalDateTime.parse(localDateTime).atZone(BERLIN).toOffsetDateTime();
+    }
+}
@@ -0,0 +1,78 @@
+package com.ademirsoy.orderservice.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StripedLocksTest {
+
+    private static final int THREADS = 8;
+    private static final int INCREMENTS_PER_THREAD = 10_000;
+
+    StripedLocks stripedLocks = new StripedLocks(16);
+    long counter;
+
+    @Test
+    void withLock_shouldSerializeActions_whenCalledConcurrentlyForSameId() throws Exception {
+        //GIVEN
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> results = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                for (int j = 0; j < INCREMENTS_PER_THREAD; j++) {
+                    stripedLocks.withLock(7L, () -> counter++);
+                }
+                return null;
+            }));
+        }
+
+        //WHEN
+        start.countDown();
+        for (Future<?> result : results) {
+            result.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        //THEN
+        assertThat(counter).isEqualTo((long) THREADS * INCREMENTS_PER_THREAD);
+    }
+
+    @Test
+    void withLock_shouldReleaseLock_whenActionThrowsException() throws Exception {
+        //GIVEN
+        assertThrows(IllegalStateException.class, () -> stripedLocks.withLock(7L, () -> {
+            throw new IllegalStateException("failed");
+        }));
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        //WHEN
+        Future<String> result = executor.submit(() -> stripedLocks.withLock(7L, () -> "done"));
+
+        //THEN
+        assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("done");
+        executor.shutdown();
+    }
+
+    @Test
+    void withLock_shouldBeReentrant_whenIdsShareStripe() {
+        //GIVEN
+        StripedLocks singleStripe = new StripedLocks(1);
+
+        //WHEN
+        String result = singleStripe.withLock(1L, () -> singleStripe.withLock(2L, () -> singleStripe.withLock(null, () -> "done")));
+
+        //THEN
+        assertThat(result).isEqualTo("done");
+    }
+}
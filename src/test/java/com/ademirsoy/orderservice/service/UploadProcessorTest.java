@@ -0,0 +1,143 @@
+package com.ademirsoy.orderservice.service;
+
+import com.ademirsoy.orderservice.exception.BadRequestException;
+import com.ademirsoy.orderservice.exception.EntityNotFoundException;
+import com.ademirsoy.orderservice.exception.ServiceUnavailableException;
+import com.ademirsoy.orderservice.model.UploadState;
+import com.ademirsoy.orderservice.model.response.UploadStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class UploadProcessorTest {
+
+    @Mock
+    OrderService orderService;
+
+    @Mock
+    FileUploadService fileUploadService;
+
+    @TempDir
+    Path stagingDirectory;
+
+    SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    UploadProcessor uploadProcessor;
+
+    @AfterEach
+    void tearDown() throws Exception {
+        uploadProcessor.shutdown();
+    }
+
+    @Test
+    void submit_shouldCompleteUpload_whenProcessingSucceeds() throws Exception {
+        //GIVEN
+        uploadProcessor = this.createProcessor(1, 10);
+        CountDownLatch processed = new CountDownLatch(1);
+        when(orderService.upload(eq(5L), eq("photos.zip"), any(Path.class), isNull())).thenAnswer(invocation -> {
+            assertThat((Path) invocation.getArgument(2)).hasBinaryContent("zip".getBytes());
+            processed.countDown();
+            return null;
+        });
+
+        //WHEN
+        UploadStatus status = uploadProcessor.submit(5L, zipFile());
+
+        //THEN
+        assertThat(status.getOrderId()).isEqualTo(5L);
+        awaitFinished(status);
+        assertThat(processed.getCount()).isZero();
+        assertThat(uploadProcessor.retrieveStatus(5L, status.getId()).getState()).isEqualTo(UploadState.COMPLETED);
+        assertThat(meterRegistry.get("order-service.upload.processing").tag("outcome", "completed").timer().count()).isEqualTo(1);
+        assertThat(Files.list(stagingDirectory)).isEmpty();
+    }
+
+    @Test
+    void submit_shouldMarkUploadFailed_whenProcessingFails() throws Exception {
+        //GIVEN
+        uploadProcessor = this.createProcessor(1, 10);
+        when(orderService.upload(eq(5L), eq("photos.zip"), any(Path.class), isNull()))
+                .thenThrow(new BadRequestException("Invalid zip file: Archive is truncated"));
+
+        //WHEN
+        UploadStatus status = uploadProcessor.submit(5L, zipFile());
+
+        //THEN
+        awaitFinished(status);
+        assertThat(status.getState()).isEqualTo(UploadState.FAILED);
+        assertThat(status.getError()).isEqualTo("Invalid zip file: Archive is truncated");
+        assertThat(Files.list(stagingDirectory)).isEmpty();
+    }
+
+    @Test
+    void submit_shouldThrowException_whenQueueIsFull() throws Exception {
+        //GIVEN
+        uploadProcessor = this.createProcessor(1, 1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(orderService.upload(eq(5L), eq("photos.zip"), any(Path.class), isNull())).thenAnswer(invocation -> {
+            release.await();
+            return null;
+        });
+        UploadStatus processing = uploadProcessor.submit(5L, zipFile());
+        UploadStatus queued = uploadProcessor.submit(5L, zipFile());
+
+        //WHEN
+        ServiceUnavailableException e = assertThrows(ServiceUnavailableException.class,
+                () -> uploadProcessor.submit(5L, zipFile()));
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("Upload queue is full, please retry later");
+        assertThat(meterRegistry.get("order-service.upload.queue").gauge().value()).isEqualTo(1);
+        release.countDown();
+        awaitFinished(processing);
+        awaitFinished(queued);
+        assertThat(queued.getState()).isEqualTo(UploadState.COMPLETED);
+    }
+
+    @Test
+    void retrieveStatus_shouldThrowException_whenUploadBelongsToAnotherOrder() throws Exception {
+        //GIVEN
+        uploadProcessor = this.createProcessor(1, 10);
+        UploadStatus status = uploadProcessor.submit(5L, zipFile());
+
+        //WHEN
+        EntityNotFoundException e = assertThrows(EntityNotFoundException.class,
+                () -> uploadProcessor.retrieveStatus(6L, status.getId()));
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("Upload not found! uploadId: " + status.getId());
+    }
+
+    private UploadProcessor createProcessor(int threads, int queueCapacity) throws Exception {
+        return new UploadProcessor(orderService, fileUploadService, meterRegistry,
+                stagingDirectory.toString(), threads, queueCapacity, 60000);
+    }
+
+    private static MockMultipartFile zipFile() {
+        return new MockMultipartFile("file", "photos.zip", "application/zip", "zip".getBytes());
+    }
+
+    private static void awaitFinished(UploadStatus status) throws InterruptedException {
+        for (int i = 0; i < 500 && status.getCompletedDate() == null; i++) {
+            Thread.sleep(10);
+        }
+        assertThat(status.getCompletedDate()).isNotNull();
+    }
+}
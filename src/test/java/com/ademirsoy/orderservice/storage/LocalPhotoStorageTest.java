@@ -0,0 +1,57 @@
+package com.ademirsoy.orderservice.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalPhotoStorageTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void store_shouldCopyContent_whenSourceIsAStream() throws Exception {
+        //GIVEN
+        LocalPhotoStorage storage = new LocalPhotoStorage(directory.resolve("photos"));
+        byte[] content = randomBytes(3 * 1024 * 1024 + 17);
+
+        //WHEN
+        String key = storage.store(5L, "photos.zip", Channels.newChannel(new ByteArrayInputStream(content)));
+
+        //THEN
+        assertThat(key).startsWith("5/").endsWith("-photos.zip");
+        assertThat(Files.readAllBytes(directory.resolve("photos").resolve(key))).isEqualTo(content);
+    }
+
+    @Test
+    void store_shouldCopyContent_whenSourceIsAFile() throws Exception {
+        //GIVEN
+        LocalPhotoStorage storage = new LocalPhotoStorage(directory.resolve("photos"));
+        byte[] content = randomBytes(1024 * 1024);
+        Path source = Files.write(directory.resolve("upload.tmp"), content);
+
+        //WHEN
+        String key;
+        try (FileChannel channel = FileChannel.open(source)) {
+            key = storage.store(5L, "../../etc/photos.zip", channel);
+        }
+
+        //THEN
+        assertThat(key).startsWith("5/").endsWith("-photos.zip");
+        assertThat(Files.readAllBytes(directory.resolve("photos").resolve(key))).isEqualTo(content);
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(42).nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,157 @@
+package com.ademirsoy.orderservice.storage;
+
+import com.ademirsoy.orderservice.model.ArchiveEntry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ZipStreamVerifierTest {
+
+    private static final long MAX_SIZE = 1024 * 1024;
+
+    @Test
+    void finish_shouldListEntries_whenDeflatedArchiveArrivesByteByByte() throws Exception {
+        //GIVEN
+        byte[] photo = randomBytes(100_000);
+        byte[] notes = "first dance at 20:00".getBytes(StandardCharsets.UTF_8);
+        byte[] archive = zip(false, "photo.jpg", photo, "notes.txt", notes);
+
+        //WHEN
+        ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_SIZE);
+        for (byte b : archive) {
+            verifier.update(ByteBuffer.wrap(new byte[]{b}));
+        }
+        verifier.finish();
+
+        //THEN
+        assertThat(verifier.getEntries()).extracting(ArchiveEntry::getName).containsExactly("photo.jpg", "notes.txt");
+        assertThat(verifier.getEntries()).extracting(ArchiveEntry::getSize).containsExactly(100_000L, (long) notes.length);
+        assertThat(verifier.getEntries().get(0).getCrc()).isEqualTo(crc(photo));
+    }
+
+    @Test
+    void finish_shouldListEntries_whenArchiveHasStoredEntriesAndDirectories() throws Exception {
+        //GIVEN
+        byte[] archive = zip(true, "album/", new byte[0], "album/photo.png", randomBytes(5000));
+
+        //WHEN
+        ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_SIZE);
+        verifier.update(ByteBuffer.wrap(archive));
+        verifier.finish();
+
+        //THEN
+        assertThat(verifier.getEntries()).extracting(ArchiveEntry::getName).containsExactly("album/", "album/photo.png");
+        assertThat(verifier.getEntries().get(1).getCompressedSize()).isEqualTo(5000);
+    }
+
+    @Test
+    void update_shouldThrowException_whenEntryIsCorrupt() throws Exception {
+        //GIVEN
+        byte[] archive = zip(true, "photo.jpg", randomBytes(5000));
+        archive[100] ^= 1;
+
+        //WHEN
+        ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_SIZE);
+        ZipException e = assertThrows(ZipException.class, () -> verifier.update(ByteBuffer.wrap(archive)));
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("CRC mismatch in entry: photo.jpg");
+    }
+
+    @Test
+    void update_shouldThrowException_whenCentralDirectoryDoesNotMatch() throws Exception {
+        //GIVEN
+        byte[] archive = zip(false, "photo.jpg", randomBytes(5000));
+        String text = new String(archive, StandardCharsets.ISO_8859_1);
+        archive[text.lastIndexOf("photo.jpg")] = 'P';
+
+        //WHEN
+        ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_SIZE);
+        ZipException e = assertThrows(ZipException.class, () -> verifier.update(ByteBuffer.wrap(archive)));
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("Central directory does not match entry: photo.jpg");
+    }
+
+    @Test
+    void update_shouldThrowException_whenContentIsNotAnArchive() {
+        //GIVEN
+        ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_SIZE);
+
+        //WHEN
+        ZipException e = assertThrows(ZipException.class,
+                () -> verifier.update(ByteBuffer.wrap("%PDF-1.4".getBytes(StandardCharsets.US_ASCII))));
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("Not a zip archive");
+    }
+
+    @Test
+    void update_shouldThrowException_whenArchiveInflatesBeyondLimit() throws Exception {
+        //GIVEN
+        byte[] archive = zip(false, "bomb.jpg", new byte[(int) MAX_SIZE + 1]);
+
+        //WHEN
+        ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_SIZE);
+        ZipException e = assertThrows(ZipException.class, () -> verifier.update(ByteBuffer.wrap(archive)));
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("Archive exceeds the maximum uncompressed size of " + MAX_SIZE + " bytes");
+    }
+
+    @Test
+    void finish_shouldThrowException_whenArchiveIsTruncated() throws Exception {
+        //GIVEN
+        byte[] archive = zip(false, "photo.jpg", randomBytes(5000));
+        ZipStreamVerifier verifier = new ZipStreamVerifier(MAX_SIZE);
+        verifier.update(ByteBuffer.wrap(Arrays.copyOf(archive, archive.length - 10)));
+
+        //WHEN
+        ZipException e = assertThrows(ZipException.class, verifier::finish);
+
+        //THEN
+        assertThat(e.getMessage()).isEqualTo("Archive is truncated");
+    }
+
+    static byte[] zip(boolean stored, Object... namesAndContents) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < namesAndContents.length; i += 2) {
+                byte[] content = (byte[]) namesAndContents[i + 1];
+                ZipEntry entry = new ZipEntry((String) namesAndContents[i]);
+                if (stored) {
+                    entry.setMethod(ZipEntry.STORED);
+                    entry.setSize(content.length);
+                    entry.setCrc(crc(content));
+                }
+                out.putNextEntry(entry);
+                out.write(content);
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static long crc(byte[] content) {
+        CRC32 crc = new CRC32();
+        crc.update(content);
+        return crc.getValue();
+    }
+
+    private static byte[] randomBytes(int size) {
+        byte[] bytes = new byte[size];
+        new Random(size).nextBytes(bytes);
+        return bytes;
+    }
+}